@@ -1,59 +1,278 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
 public class Account {
 
-    private double balance;
-    private Status status;
-    private int creditScore;
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id;
+    // amounts are always hundredths of this currency's unit, whatever its usual minor unit
+    private final Currency currency;
+    // held while the status or credit score changes and by TransactionProcessor while moving money
+    private final ReentrantLock lock = new ReentrantLock();
+    // balance is kept in cents so concurrent updates can use a CAS loop and never drift
+    private volatile long balanceCents;
+    private volatile Status status;
+    private volatile int creditScore;
     private static final int CREDIT_SCORE_THRESHOLD = 600;
+    private static final long CENTS_PER_UNIT = 100;
+    private static final AccountObserver[] NO_OBSERVERS = new AccountObserver[0];
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    // copy-on-write so notifying never takes a lock
+    private volatile AccountObserver[] observers = NO_OBSERVERS;
+    // set by VelocityLimiter.attach; null means withdrawals are not rate limited
+    private volatile VelocityLimiter velocityLimiter;
+    // set by BalanceVersions.attach; null means no versions are kept
+    private volatile BalanceVersions.Chain versions;
+
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balanceCents", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     // we didn't change the methods, only changed string statuses to enum Status
 
     public Account(double initialBalance, Status initialStatus) {
-        this.balance = initialBalance;
+        this.id = NEXT_ID.getAndIncrement();
+        this.currency = DEFAULT_CURRENCY;
+        this.balanceCents = toCents(initialBalance);
         this.status = initialStatus;
         this.creditScore = 700; // Default credit score
     }
 
     public Account(double initialBalance, Status initialStatus, int creditScore) {
-        this.balance = initialBalance;
+        this(NEXT_ID.getAndIncrement(), initialBalance, initialStatus, creditScore);
+    }
+
+    public Account(long id, double initialBalance, Status initialStatus, int creditScore) {
+        this(id, initialBalance, initialStatus, creditScore, DEFAULT_CURRENCY);
+    }
+
+    public Account(long id, double initialBalance, Status initialStatus, int creditScore, Currency currency) {
+        if (currency == null) throw new IllegalArgumentException("currency must not be null");
+        this.id = id;
+        this.currency = currency;
+        this.balanceCents = toCents(initialBalance);
         this.status = initialStatus;
         this.creditScore = creditScore;
     }
 
+    // Rebuilds an account from persisted state, e.g. by JournalRecovery
+    public static Account ofCents(long id, long balanceCents, Status status, int creditScore) {
+        return ofCents(id, balanceCents, status, creditScore, DEFAULT_CURRENCY);
+    }
+
+    public static Account ofCents(long id, long balanceCents, Status status, int creditScore, Currency currency) {
+        Account account = new Account(id, 0, status, creditScore, currency);
+        account.balanceCents = balanceCents;
+        return account;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
     public boolean deposit(double amount) {
-        // Check credit eligibility first
-        if (!isCreditEligible()) return false;
-        
-        // PROPOSED FIX: add unverified check
-        if (status == Status.CLOSED || status == Status.UNVERIFIED || amount <= 0) return false;
+        return depositCents(toCents(amount));
+    }
+
+    public boolean withdraw(double amount) {
+        return withdrawCents(toCents(amount));
+    }
+
+    public boolean depositCents(long amount) {
+        return tryDepositCents(amount) == OperationResult.OK;
+    }
+
+    public boolean withdrawCents(long amount) {
+        return tryWithdrawCents(amount) == OperationResult.OK;
+    }
+
+    // Like depositCents, but says which check turned the deposit down; the result is a shared constant
+    public OperationResult tryDepositCents(long amount) {
+        BankingMetrics metrics = BankingMetrics.installed();
+        if (metrics == null) return applyDeposit(amount);
+
+        Status before = status;
+        long started = metrics.startTimer();
+        OperationResult result = applyDeposit(amount);
+        metrics.record(BankingMetrics.Operation.DEPOSIT, before, result, started);
+        return result;
+    }
+
+    public OperationResult tryWithdrawCents(long amount) {
+        BankingMetrics metrics = BankingMetrics.installed();
+        if (metrics == null) return applyWithdraw(amount);
+
+        Status before = status;
+        long started = metrics.startTimer();
+        OperationResult result = applyWithdraw(amount);
+        metrics.record(BankingMetrics.Operation.WITHDRAWAL, before, result, started);
+        return result;
+    }
+
+    // The unmetered deposit and withdrawal, also used for the legs of a transfer
+    OperationResult applyDeposit(long amount) {
+        OperationResult check = depositCheck(status, creditScore);
+        if (check != OperationResult.OK) return check;
+        if (amount <= 0) return OperationResult.NON_POSITIVE;
+
+        if (!addToBalance(amount)) return OperationResult.LIMIT_EXCEEDED;
+        notifyDeposit(amount);
+        return OperationResult.OK;
+    }
+
+    OperationResult applyWithdraw(long amount) {
+        OperationResult check = withdrawCheck(status, creditScore);
+        if (check != OperationResult.OK) return check;
+        // a negative withdrawal would otherwise act as a deposit
+        if (amount <= 0) return OperationResult.NON_POSITIVE;
+
+        return debitWithinLimits(amount);
+    }
+
+    // Status and credit checks shared by deposit and by batch validation in TransactionProcessor
+    boolean canDeposit() {
+        return depositAllowed(status, creditScore);
+    }
+
+    boolean canWithdraw() {
+        return withdrawAllowed(status, creditScore);
+    }
+
+    static boolean depositAllowed(Status status, int creditScore) {
+        return depositCheck(status, creditScore) == OperationResult.OK;
+    }
+
+    static boolean withdrawAllowed(Status status, int creditScore) {
+        return withdrawCheck(status, creditScore) == OperationResult.OK;
+    }
+
+    // The deposit/withdraw rules on their own, so AccountStore applies exactly the same ones.
+    // Each returns the first rule that fails, or OK, from one lookup in the StatusTransitions tables.
+    static OperationResult depositCheck(Status status, int creditScore) {
+        return StatusTransitions.depositCheck(status, creditScore);
+    }
+
+    static OperationResult withdrawCheck(Status status, int creditScore) {
+        return StatusTransitions.withdrawCheck(status, creditScore);
+    }
 
-        // ORIGINAL LINE
-        // if (status == Status.CLOSED || amount <= 0) return false;
+    // Takes money out if the velocity limits and the balance allow it, skipping the status and credit checks
+    OperationResult debitWithinLimits(long amount) {
+        VelocityLimiter limiter = velocityLimiter;
+        if (limiter == null) return debitCents(amount) ? OperationResult.OK : OperationResult.INSUFFICIENT_FUNDS;
 
-        balance += amount;
+        OperationResult limited = limiter.acquire(this, amount);
+        if (limited != OperationResult.OK) return limited;
+        if (debitCents(amount)) return OperationResult.OK;
+        limiter.release(this, amount);
+        return OperationResult.INSUFFICIENT_FUNDS;
+    }
+
+    void setVelocityLimiter(VelocityLimiter limiter) {
+        velocityLimiter = limiter;
+    }
+
+    BalanceVersions.Chain versions() {
+        return versions;
+    }
+
+    void setVersions(BalanceVersions.Chain chain) {
+        versions = chain;
+    }
+
+    // Takes money out if the balance covers it, skipping the status and credit checks
+    boolean debitCents(long amount) {
+        if (!addToBalance(-amount)) return false;
+        notifyWithdraw(amount);
         return true;
     }
 
-    public boolean withdraw(double amount) {
-        // Check credit eligibility first
-        if (!isCreditEligible()) return false;
-        
-        // PROPOSED FIX: add unverified check
-        if (status == Status.CLOSED || status == Status.SUSPENDED || status == Status.UNVERIFIED) return false;
+    // Adds delta to the balance unless a credit would overflow it or a debit would take it below zero.
+    // An account with versions changes under its lock, so each version follows the one before it.
+    private boolean addToBalance(long delta) {
+        BalanceVersions.Chain chain = versions;
+        if (chain == null) return casBalance(delta);
 
-        // ORIGINAL LINE
-        // if (status == Status.CLOSED || status == Status.SUSPENDED) return false;
+        lock.lock();
+        try {
+            if (!casBalance(delta)) return false;
+            chain.owner().record(chain, balanceCents);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        if (amount > balance) return false;
-        balance -= amount;
+    private boolean casBalance(long delta) {
+        long balance;
+        do {
+            balance = balanceCents;
+            if (delta < 0 ? -delta > balance : balance > Long.MAX_VALUE - delta) return false;
+        } while (!BALANCE.compareAndSet(this, balance, balance + delta));
         return true;
     }
 
     public double getBalance(){
-        return balance;
+        return balanceCents / (double) CENTS_PER_UNIT;
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    // Adds money skipping the status and credit checks, for refunds and batches validated up front
+    void creditCents(long amount) {
+        BalanceVersions.Chain chain = versions;
+        if (chain == null) {
+            BALANCE.getAndAdd(this, amount);
+        } else {
+            lock.lock();
+            try {
+                chain.owner().record(chain, (long) BALANCE.getAndAdd(this, amount) + amount);
+            } finally {
+                lock.unlock();
+            }
+        }
+        notifyDeposit(amount);
+    }
+
+    // Puts back a withdrawal that was undone, e.g. the source leg of a refused transfer, and gives
+    // its velocity allowance back with it
+    void refundCents(long amount) {
+        VelocityLimiter limiter = velocityLimiter;
+        if (limiter != null) limiter.release(this, amount);
+        creditCents(amount);
+    }
+
+    ReentrantLock lock() {
+        return lock;
     }
 
     public void setStatus(Status status){
-        this.status = status;
+        lock.lock();
+        try {
+            Status from = this.status;
+            this.status = status;
+            notifyStatusChange(StatusEvent.SET_STATUS, from, status);
+        } finally {
+            lock.unlock();
+        }
     }
 
     // add these methods to get status and transition between states
@@ -62,36 +281,40 @@ public class Account {
         return status;
     }
 
-     public boolean verify() {
-        if (status == Status.UNVERIFIED) {
-            status = Status.VERIFIED;
-            return true;
-        }
-        return false;
+    public boolean verify() {
+        return applyEvent(StatusEvent.VERIFY);
     }
 
     public boolean violation() {
-        if (status == Status.VERIFIED) {
-            status = Status.SUSPENDED;
-            return true;
-        }
-        return false;
+        return applyEvent(StatusEvent.VIOLATION);
     }
 
     public boolean appeal() {
-        if (status == Status.SUSPENDED) {
-            status = Status.VERIFIED;
-            return true;
-        }
-        return false;
+        return applyEvent(StatusEvent.APPEAL);
     }
 
     public boolean adminAction() {
-        if (status == Status.SUSPENDED) {
-            status = Status.CLOSED;
+        return applyEvent(StatusEvent.ADMIN_ACTION);
+    }
+
+    private boolean applyEvent(StatusEvent event) {
+        lock.lock();
+        try {
+            Status from = status;
+            Status to = nextStatus(from, event);
+            if (to == null) return false;
+            status = to;
+            notifyStatusChange(event, from, to);
             return true;
+        } finally {
+            lock.unlock();
         }
-        return false;
+    }
+
+    // The FSM: where each event leads from the given status, or null if the event is not allowed there.
+    // Shared with JournalRecovery so replayed transitions follow the same rules.
+    static Status nextStatus(Status current, StatusEvent event) {
+        return StatusTransitions.next(current, event);
     }
 
     // Credit Score Methods
@@ -100,7 +323,16 @@ public class Account {
     }
 
     public void setCreditScore(int creditScore) {
-        this.creditScore = creditScore;
+        lock.lock();
+        try {
+            int from = this.creditScore;
+            this.creditScore = creditScore;
+            for (AccountObserver observer : observers) {
+                observer.onCreditScoreChange(this, from, creditScore);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean isCreditEligible() {
@@ -110,4 +342,57 @@ public class Account {
     public static int getCreditScoreThreshold() {
         return CREDIT_SCORE_THRESHOLD;
     }
-}
\ No newline at end of file
+
+    public void addObserver(AccountObserver observer) {
+        lock.lock();
+        try {
+            AccountObserver[] current = observers;
+            AccountObserver[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = observer;
+            observers = updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removeObserver(AccountObserver observer) {
+        lock.lock();
+        try {
+            AccountObserver[] current = observers;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == observer) {
+                    AccountObserver[] updated = new AccountObserver[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    observers = updated;
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notifyDeposit(long amount) {
+        for (AccountObserver observer : observers) {
+            observer.onDeposit(this, amount);
+        }
+    }
+
+    private void notifyWithdraw(long amount) {
+        for (AccountObserver observer : observers) {
+            observer.onWithdraw(this, amount);
+        }
+    }
+
+    private void notifyStatusChange(StatusEvent event, Status from, Status to) {
+        for (AccountObserver observer : observers) {
+            observer.onStatusChange(this, event, from, to);
+        }
+    }
+
+    // Converts a decimal amount to cents, rounding to the nearest cent (NaN becomes 0 and is rejected)
+    public static long toCents(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    @DisplayName("Concurrent deposits on one account are never lost")
+    public void concurrentDeposits() throws Exception {
+        Account account = new Account(0, Status.VERIFIED);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                assertTrue(account.deposit(0.01));
+            }
+        });
+
+        assertEquals(THREADS * OPERATIONS, account.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Concurrent withdrawals never overdraw the account")
+    public void concurrentWithdrawalsNeverOverdraw() throws Exception {
+        Account account = new Account(1000, Status.VERIFIED);
+        AtomicInteger successes = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                if (account.withdraw(1)) successes.incrementAndGet();
+            }
+        });
+
+        assertEquals(1000, successes.get());
+        assertEquals(0, account.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Mixed deposits and withdrawals keep an exact balance")
+    public void mixedOperationsStayExact() throws Exception {
+        Account account = new Account(500, Status.VERIFIED);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                assertTrue(account.deposit(0.10));
+                assertTrue(account.withdraw(0.10));
+            }
+        });
+
+        assertEquals(50_000, account.getBalanceCents());
+        assertEquals(500.0, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("Cent amounts do not drift like doubles")
+    public void noFloatingPointDrift() {
+        Account account = new Account(0, Status.VERIFIED);
+        account.deposit(0.1);
+        account.deposit(0.2);
+
+        assertEquals(0.3, account.getBalance());
+        assertEquals(30, account.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Status and credit checks still apply to cent operations")
+    public void centOperationsKeepChecks() {
+        Account suspended = new Account(100, Status.SUSPENDED);
+        Account lowScore = new Account(100, Status.VERIFIED, 500);
+
+        assertTrue(suspended.depositCents(100));
+        assertFalse(suspended.withdrawCents(100));
+        assertFalse(lowScore.depositCents(100));
+        assertFalse(lowScore.withdrawCents(100));
+        assertFalse(new Account(100, Status.VERIFIED).withdrawCents(-100));
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+// AccountObserver.java
+// Callback for every change an Account makes to its balance, status or credit score.
+// Callbacks run on the thread that made the change, after it took effect, so they must be quick.
+public interface AccountObserver {
+
+    default void onDeposit(Account account, long amountCents) {
+    }
+
+    default void onWithdraw(Account account, long amountCents) {
+    }
+
+    default void onStatusChange(Account account, StatusEvent event, Status from, Status to) {
+    }
+
+    default void onCreditScoreChange(Account account, int from, int to) {
+    }
+}
@@ -0,0 +1,312 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// AccountStore.java
+// Holds many accounts as parallel primitive arrays indexed by a dense int id: balance in cents (long),
+// status ordinal (byte) and credit score (short), 11 bytes per account with no object headers or
+// Status references. Single-account operations follow exactly the same rules as Account and update
+// the arrays with VarHandle CAS, so they are safe from many threads. Bulk scans walk the arrays
+// sequentially. Account objects are still used where observers, locks or journaling are needed.
+public class AccountStore {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle SHORTS = MethodHandles.arrayElementVarHandle(short[].class);
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final long[] balances;
+    private final byte[] statuses;
+    private final short[] creditScores;
+    // ids handed out so far; an id counts in size only once its slot is written
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public AccountStore(int capacity) {
+        balances = new long[capacity];
+        statuses = new byte[capacity];
+        creditScores = new short[capacity];
+    }
+
+    // Adds an account and returns its id; ids are handed out densely from 0
+    public int allocate(long balanceCents, Status status, int creditScore) {
+        short score = toShort(creditScore);
+        int id;
+        do {
+            id = reserved.get();
+            if (id >= balances.length) {
+                throw new IllegalStateException("AccountStore is full (" + balances.length + " accounts)");
+            }
+        } while (!reserved.compareAndSet(id, id + 1));
+        balances[id] = balanceCents;
+        statuses[id] = (byte) status.ordinal();
+        creditScores[id] = score;
+
+        // publish in id order: the volatile write of size releases the slot's plain writes, so
+        // checkId and the bulk scans never see a half-written account
+        while (size.get() != id) {
+            Thread.yield();
+        }
+        size.set(id + 1);
+        return id;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return balances.length;
+    }
+
+    public long getBalanceCents(int id) {
+        return (long) LONGS.getVolatile(balances, checkId(id));
+    }
+
+    public Status getStatus(int id) {
+        return STATUSES[(byte) BYTES.getVolatile(statuses, checkId(id))];
+    }
+
+    public int getCreditScore(int id) {
+        return (short) SHORTS.getVolatile(creditScores, checkId(id));
+    }
+
+    public boolean isCreditEligible(int id) {
+        return getCreditScore(id) >= Account.getCreditScoreThreshold();
+    }
+
+    public boolean deposit(int id, long amountCents) {
+        if (!Account.depositAllowed(getStatus(id), getCreditScore(id)) || amountCents <= 0) return false;
+
+        long balance;
+        do {
+            balance = (long) LONGS.getVolatile(balances, id);
+            if (balance > Long.MAX_VALUE - amountCents) return false;
+        } while (!LONGS.compareAndSet(balances, id, balance, balance + amountCents));
+        return true;
+    }
+
+    public boolean withdraw(int id, long amountCents) {
+        if (!Account.withdrawAllowed(getStatus(id), getCreditScore(id)) || amountCents <= 0) return false;
+
+        long balance;
+        do {
+            balance = (long) LONGS.getVolatile(balances, id);
+            if (amountCents > balance) return false;
+        } while (!LONGS.compareAndSet(balances, id, balance, balance - amountCents));
+        return true;
+    }
+
+    public void setStatus(int id, Status status) {
+        BYTES.setVolatile(statuses, checkId(id), (byte) status.ordinal());
+    }
+
+    public void setCreditScore(int id, int creditScore) {
+        SHORTS.setVolatile(creditScores, checkId(id), toShort(creditScore));
+    }
+
+    public boolean verify(int id) {
+        return applyEvent(id, StatusEvent.VERIFY);
+    }
+
+    public boolean violation(int id) {
+        return applyEvent(id, StatusEvent.VIOLATION);
+    }
+
+    public boolean appeal(int id) {
+        return applyEvent(id, StatusEvent.APPEAL);
+    }
+
+    public boolean adminAction(int id) {
+        return applyEvent(id, StatusEvent.ADMIN_ACTION);
+    }
+
+    private boolean applyEvent(int id, StatusEvent event) {
+        checkId(id);
+        byte[] next = StatusTransitions.nextOrSame(event);
+        while (true) {
+            byte from = (byte) BYTES.getVolatile(statuses, id);
+            byte to = next[from];
+            // no FSM event leads back to the same status, so "same" means "not allowed"
+            if (to == from) return false;
+            if (BYTES.compareAndSet(statuses, id, from, to)) return true;
+        }
+    }
+
+    // ---- bulk status changes ----
+
+    /**
+     * Applies the event to every account whose bit is set in the selection (bit i of word i/64 is
+     * account i, the layout EligibilityIndex.snapshot returns) and returns how many changed status.
+     * Accounts the event is not allowed for keep their status. The pass is one branch-free table
+     * lookup per account over the status array, so the caller must make sure no other thread
+     * changes statuses while it runs, e.g. by running it from the fraud or end-of-day job that owns them.
+     */
+    public int applyEventToAll(StatusEvent event, long[] selection) {
+        int n = size();
+        if (selection.length < (n + 63) >>> 6) {
+            throw new IllegalArgumentException("selection covers fewer than " + n + " accounts");
+        }
+        byte[] next = StatusTransitions.nextOrSame(event);
+        byte[] s = statuses;
+        int changed = 0;
+        for (int i = 0; i < n; i++) {
+            int selected = (int) (selection[i >>> 6] >>> i) & 1;
+            byte from = s[i];
+            // to = selected ? next[from] : from, without a branch
+            byte to = (byte) (from ^ ((from ^ next[from]) & -selected));
+            s[i] = to;
+            changed += (from ^ to) != 0 ? 1 : 0;
+        }
+        // publish the plain writes to readers that use getVolatile
+        VarHandle.fullFence();
+        return changed;
+    }
+
+    // Applies the event to every account, under the same single-writer rule as above
+    public int applyEventToAll(StatusEvent event) {
+        int n = size();
+        byte[] next = StatusTransitions.nextOrSame(event);
+        byte[] s = statuses;
+        int changed = 0;
+        for (int i = 0; i < n; i++) {
+            byte from = s[i];
+            byte to = next[from];
+            s[i] = to;
+            changed += (from ^ to) != 0 ? 1 : 0;
+        }
+        VarHandle.fullFence();
+        return changed;
+    }
+
+    // ---- raw columns for bulk jobs in this package (EndOfDayBatch) ----
+    // Callers read and write them with plain accesses under the single-writer rule above and
+    // finish with VarHandle.fullFence() so the getVolatile readers see the result.
+
+    long[] balanceColumn() {
+        return balances;
+    }
+
+    byte[] statusColumn() {
+        return statuses;
+    }
+
+    short[] creditScoreColumn() {
+        return creditScores;
+    }
+
+    // ---- bulk scans over the whole population ----
+
+    public long totalBalanceCents() {
+        long total = 0;
+        long[] b = balances;
+        for (int i = 0, n = size(); i < n; i++) {
+            total += b[i];
+        }
+        return total;
+    }
+
+    public int countWithStatus(Status status) {
+        byte wanted = (byte) status.ordinal();
+        int count = 0;
+        byte[] s = statuses;
+        for (int i = 0, n = size(); i < n; i++) {
+            if (s[i] == wanted) count++;
+        }
+        return count;
+    }
+
+    public int countCreditEligible() {
+        int threshold = Account.getCreditScoreThreshold();
+        int count = 0;
+        short[] c = creditScores;
+        for (int i = 0, n = size(); i < n; i++) {
+            if (c[i] >= threshold) count++;
+        }
+        return count;
+    }
+
+    // A reusable view of one account, for code written against the Account-style API.
+    // Point it at another account with moveTo instead of allocating a new view.
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public final class Cursor {
+        private int id = -1;
+
+        public Cursor moveTo(int id) {
+            this.id = checkId(id);
+            return this;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public boolean deposit(double amount) {
+            return AccountStore.this.deposit(id, Account.toCents(amount));
+        }
+
+        public boolean withdraw(double amount) {
+            return AccountStore.this.withdraw(id, Account.toCents(amount));
+        }
+
+        public double getBalance() {
+            return getBalanceCents() / 100.0;
+        }
+
+        public long getBalanceCents() {
+            return AccountStore.this.getBalanceCents(id);
+        }
+
+        public Status getStatus() {
+            return AccountStore.this.getStatus(id);
+        }
+
+        public void setStatus(Status status) {
+            AccountStore.this.setStatus(id, status);
+        }
+
+        public int getCreditScore() {
+            return AccountStore.this.getCreditScore(id);
+        }
+
+        public void setCreditScore(int creditScore) {
+            AccountStore.this.setCreditScore(id, creditScore);
+        }
+
+        public boolean isCreditEligible() {
+            return AccountStore.this.isCreditEligible(id);
+        }
+
+        public boolean verify() {
+            return AccountStore.this.verify(id);
+        }
+
+        public boolean violation() {
+            return AccountStore.this.violation(id);
+        }
+
+        public boolean appeal() {
+            return AccountStore.this.appeal(id);
+        }
+
+        public boolean adminAction() {
+            return AccountStore.this.adminAction(id);
+        }
+    }
+
+    private int checkId(int id) {
+        if (id < 0 || id >= size.get()) throw new IndexOutOfBoundsException("no account with id " + id);
+        return id;
+    }
+
+    private static short toShort(int creditScore) {
+        if (creditScore < Short.MIN_VALUE || creditScore > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("credit score out of range: " + creditScore);
+        }
+        return (short) creditScore;
+    }
+}
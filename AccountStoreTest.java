@@ -0,0 +1,166 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountStoreTest {
+
+    @Test
+    @DisplayName("Store: every operation behaves like the same operation on Account")
+    public void matchesAccountBehaviour() {
+        Random random = new Random(3);
+        int count = 100;
+        AccountStore store = new AccountStore(count);
+        Account[] accounts = new Account[count];
+        for (int i = 0; i < count; i++) {
+            Status status = Status.values()[random.nextInt(4)];
+            int score = 550 + random.nextInt(150);
+            long cents = random.nextInt(100_000);
+            accounts[i] = Account.ofCents(i, cents, status, score);
+            assertEquals(i, store.allocate(cents, status, score));
+        }
+
+        AccountStore.Cursor cursor = store.cursor();
+        for (int op = 0; op < 20_000; op++) {
+            int id = random.nextInt(count);
+            Account account = accounts[id];
+            cursor.moveTo(id);
+            double amount = (random.nextInt(20_000) - 1_000) / 100.0;
+            switch (random.nextInt(7)) {
+                case 0: assertEquals(account.deposit(amount), cursor.deposit(amount)); break;
+                case 1: assertEquals(account.withdraw(amount), cursor.withdraw(amount)); break;
+                case 2: assertEquals(account.verify(), cursor.verify()); break;
+                case 3: assertEquals(account.violation(), cursor.violation()); break;
+                case 4: assertEquals(account.appeal(), cursor.appeal()); break;
+                case 5: assertEquals(account.adminAction(), cursor.adminAction()); break;
+                default:
+                    int score = 550 + random.nextInt(150);
+                    account.setCreditScore(score);
+                    cursor.setCreditScore(score);
+                    break;
+            }
+            assertEquals(account.getBalanceCents(), cursor.getBalanceCents());
+            assertEquals(account.getStatus(), cursor.getStatus());
+            assertEquals(account.isCreditEligible(), cursor.isCreditEligible());
+        }
+    }
+
+    @Test
+    @DisplayName("Store: bulk scans count the whole population")
+    public void bulkScans() {
+        AccountStore store = new AccountStore(1000);
+        for (int i = 0; i < 1000; i++) {
+            store.allocate(100, i % 2 == 0 ? Status.VERIFIED : Status.SUSPENDED, i < 250 ? 500 : 700);
+        }
+
+        assertEquals(100_000, store.totalBalanceCents());
+        assertEquals(500, store.countWithStatus(Status.VERIFIED));
+        assertEquals(0, store.countWithStatus(Status.CLOSED));
+        assertEquals(750, store.countCreditEligible());
+    }
+
+    @Test
+    @DisplayName("Store: a bulk event changes only selected accounts the FSM allows")
+    public void bulkEventOnSelection() {
+        int count = 100_000;
+        AccountStore store = new AccountStore(count);
+        for (int i = 0; i < count; i++) {
+            store.allocate(100, i % 4 == 0 ? Status.UNVERIFIED : Status.VERIFIED, 700);
+        }
+        // flag every third account, as a fraud rule might
+        long[] flagged = new long[(count + 63) / 64];
+        for (int i = 0; i < count; i += 3) {
+            flagged[i >>> 6] |= 1L << i;
+        }
+
+        int suspended = store.applyEventToAll(StatusEvent.VIOLATION, flagged);
+
+        int expected = 0;
+        for (int i = 0; i < count; i++) {
+            boolean shouldSuspend = i % 3 == 0 && i % 4 != 0;
+            if (shouldSuspend) expected++;
+            Status want = shouldSuspend ? Status.SUSPENDED : i % 4 == 0 ? Status.UNVERIFIED : Status.VERIFIED;
+            assertEquals(want, store.getStatus(i), "account " + i);
+        }
+        assertEquals(expected, suspended);
+
+        assertEquals(expected, store.applyEventToAll(StatusEvent.ADMIN_ACTION));
+        assertEquals(expected, store.countWithStatus(Status.CLOSED));
+        assertThrows(IllegalArgumentException.class, () -> store.applyEventToAll(StatusEvent.VERIFY, new long[1]));
+    }
+
+    @Test
+    @DisplayName("Store: concurrent deposits on one slot are never lost")
+    public void concurrentDeposits() throws Exception {
+        AccountStore store = new AccountStore(1);
+        int id = store.allocate(0, Status.VERIFIED, 700);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = pool.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        assertTrue(store.deposit(id, 1));
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(200_000, store.getBalanceCents(id));
+    }
+
+    @Test
+    @DisplayName("Store: an account is only visible once allocate has written all of it")
+    public void concurrentAllocatePublishesWholeSlots() throws Exception {
+        int perThread = 20_000;
+        AccountStore store = new AccountStore(3 * perThread);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] writers = new Future<?>[3];
+            for (int t = 0; t < writers.length; t++) {
+                writers[t] = pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        store.allocate(5, Status.VERIFIED, 700);
+                    }
+                });
+            }
+            Future<?> reader = pool.submit(() -> {
+                while (store.size() < store.capacity()) {
+                    int n = store.size();
+                    if (n == 0) continue;
+                    int id = n - 1;
+                    assertEquals(5, store.getBalanceCents(id));
+                    assertEquals(Status.VERIFIED, store.getStatus(id));
+                    assertEquals(700, store.getCreditScore(id));
+                }
+            });
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(3 * perThread, store.size());
+    }
+
+    @Test
+    @DisplayName("Store: ids outside the allocated range and a full store are rejected")
+    public void rejectsBadIdsAndOverflow() {
+        AccountStore store = new AccountStore(1);
+        store.allocate(0, Status.VERIFIED, 700);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getBalanceCents(1));
+        assertThrows(IllegalStateException.class, () -> store.allocate(0, Status.VERIFIED, 700));
+    }
+}
@@ -0,0 +1,118 @@
+import java.nio.ByteBuffer;
+
+// AmountParser.java
+// Parses decimal money amounts such as "125.50" straight into cents without allocating or throwing.
+// Accepted: optional surrounding whitespace, an optional sign, digits and an optional decimal point.
+// Digits past the second decimal place are rounded half up. Anything else (letters, exponents,
+// NaN, Infinity, empty input, values too large for a long) returns INVALID.
+public final class AmountParser {
+
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MAX_UNITS = Long.MAX_VALUE / 100;
+
+    private AmountParser() {
+    }
+
+    public static long parseCents(CharSequence text) {
+        if (text == null) return INVALID;
+        return parse(text::charAt, 0, text.length());
+    }
+
+    // Same grammar over ASCII bytes, for amounts read straight from a network or file buffer
+    public static long parseCents(ByteBuffer buffer, int offset, int length) {
+        return parse(buffer::get, offset, offset + length);
+    }
+
+    // One character of the input; both overloads read through this, so the call is inlined away
+    private interface Source {
+        int charAt(int index);
+    }
+
+    private static long parse(Source text, int start, int end) {
+        while (start < end && isWhitespace(text.charAt(start))) start++;
+        while (end > start && isWhitespace(text.charAt(end - 1))) end--;
+        if (start == end) return INVALID;
+
+        boolean negative = false;
+        int first = text.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+        }
+
+        long units = 0;
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        boolean sawDigit = false;
+        boolean sawPoint = false;
+        for (int i = start; i < end; i++) {
+            int c = text.charAt(i);
+            if (c == '.') {
+                if (sawPoint) return INVALID;
+                sawPoint = true;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) return INVALID;
+            sawDigit = true;
+            if (!sawPoint) {
+                if (units > (MAX_UNITS - digit) / 10) return INVALID;
+                units = units * 10 + digit;
+            } else if (fractionDigits < 2) {
+                fraction = fraction * 10 + digit;
+                fractionDigits++;
+            } else if (fractionDigits == 2) {
+                roundUp = digit >= 5;
+                fractionDigits++;
+            }
+        }
+        if (!sawDigit) return INVALID;
+
+        return toCents(negative, units, fraction, fractionDigits, roundUp);
+    }
+
+    // Appends cents as "1234.56" (no grouping, always two decimals) without going through String.format
+    public static StringBuilder appendCents(StringBuilder out, long cents) {
+        if (cents < 0) out.append('-');
+        long units = Math.abs(cents / 100);
+        int remainder = (int) Math.abs(cents % 100);
+        out.append(units).append('.');
+        if (remainder < 10) out.append('0');
+        return out.append(remainder);
+    }
+
+    // Writes cents as ASCII "1234.56" straight into a buffer, the same text appendCents produces
+    public static ByteBuffer putCents(ByteBuffer out, long cents) {
+        if (cents < 0) out.put((byte) '-');
+        long units = Math.abs(cents / 100);
+        int remainder = (int) Math.abs(cents % 100);
+        putDigits(out, units);
+        return out.put((byte) '.').put((byte) ('0' + remainder / 10)).put((byte) ('0' + remainder % 10));
+    }
+
+    // Writes a non-negative number in decimal
+    public static ByteBuffer putDigits(ByteBuffer out, long value) {
+        long divisor = 1;
+        while (value / divisor >= 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + value / divisor % 10));
+        }
+        return out;
+    }
+
+    private static long toCents(boolean negative, long units, long fraction, int fractionDigits, boolean roundUp) {
+        if (fractionDigits == 1) fraction *= 10;
+        // units * 100 always fits, but the cents on top of MAX_UNITS may not
+        long whole = units * 100;
+        long part = fraction + (roundUp ? 1 : 0);
+        if (part > Long.MAX_VALUE - whole) return INVALID;
+        long cents = whole + part;
+        return negative ? -cents : cents;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
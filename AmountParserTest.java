@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountParserTest {
+
+    @Test
+    @DisplayName("Parser: plain decimal amounts become cents")
+    public void parsesDecimals() {
+        assertEquals(10_000, AmountParser.parseCents("100"));
+        assertEquals(10_000, AmountParser.parseCents("100.0"));
+        assertEquals(12_550, AmountParser.parseCents("125.50"));
+        assertEquals(50, AmountParser.parseCents(".5"));
+        assertEquals(500, AmountParser.parseCents("5."));
+        assertEquals(-5_000, AmountParser.parseCents("-50"));
+        assertEquals(700, AmountParser.parseCents("+7"));
+        assertEquals(123_456, AmountParser.parseCents(" 1234.56\n"));
+    }
+
+    @Test
+    @DisplayName("Parser: extra decimal places round half up")
+    public void roundsExtraDecimals() {
+        assertEquals(1, AmountParser.parseCents("0.005"));
+        assertEquals(0, AmountParser.parseCents("0.004"));
+        assertEquals(1_000, AmountParser.parseCents("9.999"));
+    }
+
+    @Test
+    @DisplayName("Parser: garbage returns INVALID instead of throwing")
+    public void rejectsGarbage() {
+        for (String text : new String[] {"NotANumber", "", "   ", "-", ".", "1.2.3", "12a", "1e3", "NaN",
+                "Infinity", "--5", "99999999999999999999"}) {
+            assertEquals(AmountParser.INVALID, AmountParser.parseCents(text), text);
+        }
+        assertEquals(AmountParser.INVALID, AmountParser.parseCents((CharSequence) null));
+    }
+
+    @Test
+    @DisplayName("Parser: amounts at the top of the long range are exact or INVALID, never wrapped")
+    public void handlesTopOfRange() {
+        assertEquals(Long.MAX_VALUE, AmountParser.parseCents("92233720368547758.07"));
+        assertEquals(-Long.MAX_VALUE, AmountParser.parseCents("-92233720368547758.07"));
+        assertEquals(Long.MAX_VALUE, AmountParser.parseCents("92233720368547758.065"));
+        for (String text : new String[] {"92233720368547758.08", "92233720368547758.075", "92233720368547758.99",
+                "92233720368547758.995", "-92233720368547758.08"}) {
+            assertEquals(AmountParser.INVALID, AmountParser.parseCents(text), text);
+            ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+            assertEquals(AmountParser.INVALID, AmountParser.parseCents(bytes, 0, bytes.limit()), text);
+        }
+    }
+
+    @Test
+    @DisplayName("Parser: byte buffer input follows the same grammar")
+    public void parsesBytes() {
+        ByteBuffer buffer = ByteBuffer.wrap("amount=125.50;x".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(12_550, AmountParser.parseCents(buffer, 7, 6));
+        assertEquals(AmountParser.INVALID, AmountParser.parseCents(buffer, 0, 6));
+    }
+
+    @Test
+    @DisplayName("Formatter: cents print with two decimals")
+    public void formatsCents() {
+        assertEquals("1234.56", AmountParser.appendCents(new StringBuilder(), 123_456).toString());
+        assertEquals("0.05", AmountParser.appendCents(new StringBuilder(), 5).toString());
+        assertEquals("-1.50", AmountParser.appendCents(new StringBuilder(), -150).toString());
+    }
+
+    @Test
+    @DisplayName("Controller: fast path returns preallocated results")
+    public void controllerResults() {
+        ClientController controller = new ClientController();
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+
+        assertSame(ControllerResult.DEPOSIT_SUCCESSFUL, controller.deposit(source, "25.25"));
+        assertSame(ControllerResult.WITHDRAWAL_FAILED, controller.withdraw(source, "1000"));
+        assertSame(ControllerResult.TRANSFER_SUCCESSFUL, controller.transfer(source, target, "0.25"));
+        assertSame(ControllerResult.INVALID_INPUT, controller.deposit(source, "ten"));
+        assertEquals(12_500, source.getBalanceCents());
+        assertEquals("Balance: $125.00", controller.handleViewStatement(source));
+
+        StringBuilder reused = new StringBuilder();
+        controller.appendStatement(target, reused);
+        assertEquals("Balance: $0.25", reused.toString());
+    }
+}
@@ -0,0 +1,265 @@
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// BalanceVersions.java
+// Multi-version balances, so a report can read many accounts as they all were at one instant while
+// transfers keep running.
+//
+// Every attached account keeps a short chain of versions, newest first. Each version is the balance
+// after one commit and carries that commit's number from a global sequence. A commit is one
+// deposit or withdrawal, or all legs of one transfer, batch or multi-leg transaction when the
+// TransactionProcessor was given this instance: while it holds the accounts' locks the processor
+// opens a group on its thread, every balance change inside the group joins the same commit, and
+// the commit takes its number when the group ends, before any lock is released.
+//
+// open() returns a Snapshot at the latest sequence N. Reading an account walks its chain to the
+// newest version numbered N or lower, so the snapshot sees every commit up to N in full and none
+// after it: money is never in two accounts or in none. Readers take no account locks and writers
+// never wait for readers. A reader that meets a version whose commit has not taken its number yet
+// yields until it has; that is only ever the few instructions at the end of one locked transfer.
+//
+// Old versions are collected as the account is written: versions older than the one that the
+// oldest open snapshot would read are unlinked. With no snapshot open a chain is one version
+// long; an account that is not written keeps its chain until its next write.
+//
+// Accounts should be attached before they take traffic. Attaching records the current balance as
+// the base version, which every snapshot sees until the account's first commit. Plain deposits and
+// withdrawals on an attached account take its lock, so its versions follow the order of its writes.
+public class BalanceVersions {
+
+    // the sequence number of a commit that has not finished yet
+    private static final long PENDING = 0;
+    // the number of the base version recorded by attach
+    private static final long BASE = 1;
+    private static final Commit BASE_COMMIT = new Commit(BASE);
+
+    private static final Comparator<Reader> OLDEST_FIRST =
+            Comparator.<Reader>comparingLong(reader -> reader.floor).thenComparingLong(reader -> reader.serial);
+    // sorts before every registered reader, so ceiling(NONE) is the oldest one
+    private static final Reader NONE = new Reader(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final AtomicLong sequence = new AtomicLong(BASE);
+    private final AtomicLong serials = new AtomicLong();
+    private final ConcurrentSkipListSet<Reader> readers = new ConcurrentSkipListSet<>(OLDEST_FIRST);
+    private final ThreadLocal<Group> groups = ThreadLocal.withInitial(Group::new);
+
+    // Starts keeping versions of the account's balance
+    public void attach(Account account) {
+        account.lock().lock();
+        try {
+            account.setVersions(new Chain(this, new Version(account.getBalanceCents(), BASE_COMMIT, null)));
+        } finally {
+            account.lock().unlock();
+        }
+    }
+
+    public void detach(Account account) {
+        account.lock().lock();
+        try {
+            account.setVersions(null);
+        } finally {
+            account.lock().unlock();
+        }
+    }
+
+    // The number of the latest commit
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    // Snapshots opened and not closed yet
+    public int openSnapshots() {
+        return readers.size();
+    }
+
+    // Versions the account still keeps, for tests
+    int versionCount(Account account) {
+        Chain chain = account.versions();
+        int count = 0;
+        for (Version version = chain == null ? null : chain.head; version != null; version = version.older) {
+            count++;
+        }
+        return count;
+    }
+
+    // A consistent view of every attached account as of the latest commit; close it when done so
+    // the versions it holds can be collected
+    public Snapshot open() {
+        Reader reader = new Reader(sequence.get(), serials.incrementAndGet());
+        readers.add(reader);
+        // read the sequence again once registered: a writer that missed the registration read the
+        // sequence before this, so it has not collected any version this snapshot needs
+        return new Snapshot(reader, sequence.get());
+    }
+
+    // Makes the balance changes of this thread join one commit until the matching end(). The
+    // caller must hold the locks of every account it changes until end() returns. Groups nest.
+    void begin() {
+        groups.get().depth++;
+    }
+
+    void end() {
+        Group group = groups.get();
+        if (--group.depth == 0 && group.commit != null) {
+            group.commit.sequence = sequence.incrementAndGet();
+            group.commit = null;
+        }
+    }
+
+    // Called by the account, holding its lock, right after its balance changed
+    void record(Chain chain, long balanceCents) {
+        Group group = groups.get();
+        Commit commit;
+        if (group.depth > 0) {
+            if (group.commit == null) group.commit = new Commit(PENDING);
+            commit = group.commit;
+        } else {
+            commit = new Commit(PENDING);
+        }
+
+        // a second change in the same commit replaces the first, as no reader can see between them
+        Version head = chain.head;
+        chain.head = new Version(balanceCents, commit, head.commit == commit ? head.older : head);
+        if (group.depth == 0) commit.sequence = sequence.incrementAndGet();
+        collect(chain);
+    }
+
+    // Unlinks the versions that no open or future snapshot can read
+    private void collect(Chain chain) {
+        long horizon = horizon();
+        // with the same horizon as last time everything below it is already gone
+        if (horizon == chain.collectedAt) return;
+        chain.collectedAt = horizon;
+        for (Version version = chain.head; version != null; version = version.older) {
+            long number = version.commit.sequence;
+            if (number != PENDING && number <= horizon) {
+                version.older = null;
+                return;
+            }
+        }
+    }
+
+    // The oldest sequence a snapshot may still read at
+    private long horizon() {
+        // the sequence first, then the readers: a reader that registers after the check reads a
+        // sequence at least this one, see open()
+        long latest = sequence.get();
+        Reader oldest = readers.ceiling(NONE);
+        return oldest == null ? latest : Math.min(latest, oldest.floor);
+    }
+
+    // A view of the attached accounts as of one sequence number. Not for use by several threads at once.
+    public final class Snapshot implements AutoCloseable {
+
+        private final Reader reader;
+        private final long sequence;
+        private boolean closed;
+
+        private Snapshot(Reader reader, long sequence) {
+            this.reader = reader;
+            this.sequence = sequence;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        // The account's balance after every commit up to this snapshot's sequence
+        public long getBalanceCents(Account account) {
+            if (closed) throw new IllegalStateException("snapshot is closed");
+            Chain chain = account.versions();
+            if (chain == null || chain.owner != BalanceVersions.this) {
+                throw new IllegalArgumentException("account " + account.getId() + " is not attached to these versions");
+            }
+            for (Version version = chain.head; version != null; version = version.older) {
+                if (version.commit.await(groups) <= sequence) return version.balanceCents;
+            }
+            throw new IllegalStateException("account " + account.getId() + " has no version at " + sequence);
+        }
+
+        // The sum of the accounts' balances at this snapshot
+        public long totalCents(Iterable<Account> accounts) {
+            long total = 0;
+            for (Account account : accounts) {
+                total = Math.addExact(total, getBalanceCents(account));
+            }
+            return total;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            readers.remove(reader);
+        }
+    }
+
+    // One account's versions, held by the account
+    static final class Chain {
+        private final BalanceVersions owner;
+        // written under the account lock
+        private volatile Version head;
+        private volatile long collectedAt;
+
+        private Chain(BalanceVersions owner, Version head) {
+            this.owner = owner;
+            this.head = head;
+        }
+
+        BalanceVersions owner() {
+            return owner;
+        }
+    }
+
+    private static final class Version {
+        final long balanceCents;
+        final Commit commit;
+        // cut to null once no snapshot can read past this version; a reader that still sees the
+        // old link only follows it to versions that are also correct for it
+        Version older;
+
+        Version(long balanceCents, Commit commit, Version older) {
+            this.balanceCents = balanceCents;
+            this.commit = commit;
+            this.older = older;
+        }
+    }
+
+    private static final class Commit {
+        volatile long sequence;
+
+        Commit(long sequence) {
+            this.sequence = sequence;
+        }
+
+        // The commit's number, waiting for it if the commit is still running on another thread.
+        // The reader's own unfinished commit cannot be in its snapshot, so it counts as the newest.
+        long await(ThreadLocal<Group> groups) {
+            long number = sequence;
+            if (number != PENDING) return number;
+            if (groups.get().commit == this) return Long.MAX_VALUE;
+            while ((number = sequence) == PENDING) {
+                Thread.yield();
+            }
+            return number;
+        }
+    }
+
+    // The open commit of one thread
+    private static final class Group {
+        int depth;
+        Commit commit;
+    }
+
+    // A registered snapshot: floor is a sequence at or below the one it reads at
+    private static final class Reader {
+        final long floor;
+        final long serial;
+
+        Reader(long floor, long serial) {
+            this.floor = floor;
+            this.serial = serial;
+        }
+    }
+}
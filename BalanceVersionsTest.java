@@ -0,0 +1,173 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceVersionsTest {
+
+    private final BalanceVersions versions = new BalanceVersions();
+    private final TransactionProcessor processor = new TransactionProcessor();
+
+    private long nextId = 1;
+
+    private Account attached(long cents) {
+        Account account = Account.ofCents(nextId++, cents, Status.VERIFIED, 700);
+        versions.attach(account);
+        return account;
+    }
+
+    @Test
+    @DisplayName("Versions: a snapshot keeps the balances it opened with while transfers go on")
+    public void snapshotIsPointInTime() {
+        processor.setBalanceVersions(versions);
+        Account a = attached(10_000);
+        Account b = attached(0);
+
+        try (BalanceVersions.Snapshot before = versions.open()) {
+            assertTrue(processor.processTransferCents(a, b, 2_500));
+            assertTrue(a.depositCents(100));
+
+            assertEquals(10_000, before.getBalanceCents(a));
+            assertEquals(0, before.getBalanceCents(b));
+            try (BalanceVersions.Snapshot after = versions.open()) {
+                assertEquals(7_600, after.getBalanceCents(a));
+                assertEquals(2_500, after.getBalanceCents(b));
+                assertTrue(after.getSequence() > before.getSequence());
+            }
+        }
+        assertEquals(7_600, a.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Versions: each transfer, batch and multi-leg transaction is one commit")
+    public void legsCommitTogether() {
+        processor.setBalanceVersions(versions);
+        Account a = attached(10_000);
+        Account b = attached(0);
+        Account c = attached(0);
+
+        long start = versions.currentSequence();
+        assertTrue(processor.processTransferCents(a, b, 100));
+        assertEquals(start + 1, versions.currentSequence());
+
+        processor.processBatch(List.of(new TransferInstruction(a, b, 1.00), new TransferInstruction(b, c, 0.50)));
+        assertEquals(start + 2, versions.currentSequence());
+
+        assertEquals(OperationResult.OK, processor.processTransaction(TransactionLeg.debitCents(a, 300),
+                TransactionLeg.creditCents(b, 100), TransactionLeg.creditCents(c, 200)));
+        assertEquals(start + 3, versions.currentSequence());
+
+        // a refused transfer refunds inside its own commit, which no snapshot can tell from no change
+        b.setStatus(Status.CLOSED);
+        try (BalanceVersions.Snapshot snapshot = versions.open()) {
+            assertFalse(processor.processTransferCents(a, b, 100));
+            assertEquals(9_500, snapshot.getBalanceCents(a));
+        }
+        try (BalanceVersions.Snapshot snapshot = versions.open()) {
+            assertEquals(9_500, snapshot.getBalanceCents(a));
+        }
+    }
+
+    @Test
+    @DisplayName("Versions: old versions are collected once no snapshot holds them")
+    public void collectsOldVersions() {
+        Account account = attached(1_000);
+        assertTrue(account.depositCents(10));
+        assertEquals(1, versions.versionCount(account));
+
+        BalanceVersions.Snapshot snapshot = versions.open();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(account.withdrawCents(10));
+        }
+        assertEquals(6, versions.versionCount(account));
+        assertEquals(1_010, snapshot.getBalanceCents(account));
+        assertEquals(1, versions.openSnapshots());
+
+        snapshot.close();
+        assertEquals(0, versions.openSnapshots());
+        assertThrows(IllegalStateException.class, () -> snapshot.getBalanceCents(account));
+        assertTrue(account.depositCents(10));
+        assertEquals(1, versions.versionCount(account));
+    }
+
+    @Test
+    @DisplayName("Versions: accounts that are not attached cannot be read from a snapshot")
+    public void rejectsUnattachedAccounts() {
+        Account attached = attached(100);
+        Account plain = new Account(1, Status.VERIFIED);
+        try (BalanceVersions.Snapshot snapshot = versions.open()) {
+            assertEquals(100, snapshot.getBalanceCents(attached));
+            assertThrows(IllegalArgumentException.class, () -> snapshot.getBalanceCents(plain));
+            Account elsewhere = new Account(1, Status.VERIFIED);
+            new BalanceVersions().attach(elsewhere);
+            assertThrows(IllegalArgumentException.class, () -> snapshot.getBalanceCents(elsewhere));
+
+            versions.detach(attached);
+            assertThrows(IllegalArgumentException.class, () -> snapshot.getBalanceCents(attached));
+        }
+    }
+
+    @Test
+    @DisplayName("Versions: every snapshot totals the same amount while transfers run concurrently")
+    public void snapshotsAreConsistentUnderLoad() throws Exception {
+        processor.setBalanceVersions(versions);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            accounts.add(attached(100_000));
+        }
+        long total = 16 * 100_000L;
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                int seed = t;
+                writers.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 20_000; i++) {
+                        Account source = accounts.get(random.nextInt(accounts.size()));
+                        Account target = accounts.get(random.nextInt(accounts.size()));
+                        processor.processTransferCents(source, target, 1 + random.nextInt(5_000));
+                    }
+                }));
+            }
+            Future<Integer> reader = pool.submit(() -> {
+                int snapshots = 0;
+                while (running.get()) {
+                    try (BalanceVersions.Snapshot snapshot = versions.open()) {
+                        assertEquals(total, snapshot.totalCents(accounts));
+                    }
+                    snapshots++;
+                }
+                return snapshots;
+            });
+
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            running.set(false);
+            pool.shutdownNow();
+        }
+
+        long live = 0;
+        for (Account account : accounts) {
+            live += account.getBalanceCents();
+            assertTrue(account.depositCents(1));
+            assertEquals(1, versions.versionCount(account));
+        }
+        assertEquals(total, live);
+    }
+}
@@ -0,0 +1,233 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// BankingHttpServer.java
+// Embedded HTTP/JSON front end for ClientController, built on the JDK's com.sun.net.httpserver.
+//
+//   POST /accounts/{id}/deposit?amount=12.50
+//   POST /accounts/{id}/withdraw?amount=12.50
+//   POST /transfers?from={id}&to={id}&amount=12.50   (optional Idempotency-Key header)
+//   GET  /accounts/{id}/statement
+//   GET  /accounts/{id}/credit-eligibility
+//   GET  /accounts/{id}/loan-eligibility?amount=5000
+//
+// Each request runs on its own virtual thread when the JVM has them (JDK 21+), so thousands of
+// concurrent clients do not need a large platform-thread pool. Older JVMs fall back to a cached pool.
+public class BankingHttpServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<Long, Account> accounts;
+    private final ClientController controller;
+
+    public BankingHttpServer(int port, Map<Long, Account> accounts, ClientController controller) throws IOException {
+        this.accounts = accounts;
+        this.controller = controller;
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/accounts/", this::handleAccount);
+        server.createContext("/transfers", this::handleTransfer);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // the bound port, useful when the server was created on port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Virtual-thread-per-task executor when available, looked up reflectively so the class still compiles on JDK 17
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handleAccount(HttpExchange exchange) throws IOException {
+        try {
+            if (isPreflight(exchange)) return;
+
+            // /accounts/{id}/{action}
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            if (parts.length != 4) {
+                send(exchange, 404, "{\"error\":\"not found\"}");
+                return;
+            }
+            Account account = findAccount(parts[2]);
+            if (account == null) {
+                send(exchange, 404, "{\"error\":\"unknown account\"}");
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+
+            switch (parts[3]) {
+                case "deposit":
+                    if (!requireMethod(exchange, method, "POST")) return;
+                    OperationResult deposit = controller.tryDeposit(account, query.get("amount"));
+                    sendResult(exchange, ControllerResult.ofDeposit(deposit), deposit, account);
+                    break;
+                case "withdraw":
+                    if (!requireMethod(exchange, method, "POST")) return;
+                    OperationResult withdrawal = controller.tryWithdraw(account, query.get("amount"));
+                    sendResult(exchange, ControllerResult.ofWithdrawal(withdrawal), withdrawal, account);
+                    break;
+                case "statement":
+                    if (!requireMethod(exchange, method, "GET")) return;
+                    send(exchange, 200, "{\"statement\":" + quote(controller.handleViewStatement(account))
+                            + ",\"status\":" + quote(account.getStatus().name()) + "}");
+                    break;
+                case "credit-eligibility":
+                    if (!requireMethod(exchange, method, "GET")) return;
+                    send(exchange, 200, "{\"eligible\":" + account.isCreditEligible()
+                            + ",\"message\":" + quote(controller.checkCreditEligibility(account)) + "}");
+                    break;
+                case "loan-eligibility":
+                    if (!requireMethod(exchange, method, "GET")) return;
+                    long loanCents = AmountParser.parseCents(query.get("amount"));
+                    if (loanCents == AmountParser.INVALID) {
+                        send(exchange, 400, "{\"error\":" + quote(ControllerResult.INVALID_INPUT.message()) + "}");
+                        return;
+                    }
+                    send(exchange, 200, "{\"eligible\":" + controller.isEligibleForLoan(account, loanCents / 100.0) + "}");
+                    break;
+                default:
+                    send(exchange, 404, "{\"error\":\"not found\"}");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleTransfer(HttpExchange exchange) throws IOException {
+        try {
+            if (isPreflight(exchange)) return;
+            if (!requireMethod(exchange, exchange.getRequestMethod(), "POST")) return;
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            Account source = findAccount(query.get("from"));
+            Account target = findAccount(query.get("to"));
+            if (source == null || target == null) {
+                send(exchange, 404, "{\"error\":\"unknown account\"}");
+                return;
+            }
+            String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            OperationResult transfer = controller.tryTransfer(key, source, target, query.get("amount"));
+            sendResult(exchange, ControllerResult.ofTransfer(transfer), transfer, source);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendResult(HttpExchange exchange, ControllerResult result, OperationResult reason, Account account)
+            throws IOException {
+        int code = result == ControllerResult.INVALID_INPUT ? 400 : result.isSuccess() ? 200 : 422;
+        StringBuilder body = new StringBuilder(128)
+                .append("{\"result\":\"").append(result.name())
+                .append("\",\"reason\":\"").append(reason.name())
+                .append("\",\"message\":").append(quote(result.message()))
+                .append(",\"balance\":\"");
+        AmountParser.appendCents(body, account.getBalanceCents()).append("\"}");
+        send(exchange, code, body.toString());
+    }
+
+    private Account findAccount(String id) {
+        if (id == null) return null;
+        try {
+            return accounts.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean requireMethod(HttpExchange exchange, String method, String expected) throws IOException {
+        if (expected.equals(method)) return true;
+        exchange.getResponseHeaders().set("Allow", expected);
+        send(exchange, 405, "{\"error\":\"method not allowed\"}");
+        return false;
+    }
+
+    // the React app runs on another origin, so answer CORS preflight requests
+    private static boolean isPreflight(HttpExchange exchange) throws IOException {
+        if (!"OPTIONS".equals(exchange.getRequestMethod())) return false;
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Idempotency-Key");
+        exchange.sendResponseHeaders(204, -1);
+        return true;
+    }
+
+    private static void send(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    static String quote(String text) {
+        StringBuilder out = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    // Starts the server with a few demo accounts: java BankingHttpServer [port]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Map<Long, Account> accounts = new ConcurrentHashMap<>();
+        accounts.put(1L, new Account(1L, 1000, Status.VERIFIED, 720));
+        accounts.put(2L, new Account(2L, 250, Status.VERIFIED, 650));
+        accounts.put(3L, new Account(3L, 500, Status.SUSPENDED, 700));
+        accounts.put(4L, new Account(4L, 0, Status.UNVERIFIED, 580));
+
+        BankingHttpServer server = new BankingHttpServer(port, accounts, new ClientController());
+        server.start();
+        System.out.println("Banking API listening on http://localhost:" + server.getPort());
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankingHttpServerTest {
+
+    private BankingHttpServer server;
+    private HttpClient http;
+    private Account source;
+    private Account target;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        source = new Account(1L, 1000, Status.VERIFIED, 700);
+        target = new Account(2L, 0, Status.VERIFIED, 700);
+        Map<Long, Account> accounts = new ConcurrentHashMap<>();
+        accounts.put(1L, source);
+        accounts.put(2L, target);
+        accounts.put(3L, new Account(3L, 50, Status.SUSPENDED, 500));
+
+        server = new BankingHttpServer(0, accounts, new ClientController());
+        server.start();
+        http = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("HTTP: deposit, withdraw and transfer go through the controller")
+    public void moneyEndpoints() throws Exception {
+        HttpResponse<String> deposit = post("/accounts/1/deposit?amount=100.50");
+        assertEquals(200, deposit.statusCode());
+        assertEquals("{\"result\":\"DEPOSIT_SUCCESSFUL\",\"reason\":\"OK\",\"message\":\"Deposit successful\",\"balance\":\"1100.50\"}",
+                deposit.body());
+
+        HttpResponse<String> withdraw = post("/accounts/1/withdraw?amount=5000");
+        assertEquals(422, withdraw.statusCode());
+        assertTrue(withdraw.body().contains("WITHDRAWAL_FAILED"));
+        assertTrue(withdraw.body().contains("\"reason\":\"INSUFFICIENT_FUNDS\""));
+
+        HttpResponse<String> transfer = post("/transfers?from=1&to=2&amount=0.50");
+        assertEquals(200, transfer.statusCode());
+        assertEquals(110_000, source.getBalanceCents());
+        assertEquals(50, target.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("HTTP: read-only endpoints report statement and eligibility")
+    public void readEndpoints() throws Exception {
+        assertEquals("{\"statement\":\"Balance: $1000.00\",\"status\":\"VERIFIED\"}", get("/accounts/1/statement").body());
+        assertTrue(get("/accounts/1/credit-eligibility").body().startsWith("{\"eligible\":true"));
+        assertTrue(get("/accounts/3/credit-eligibility").body().startsWith("{\"eligible\":false"));
+        assertEquals("{\"eligible\":true}", get("/accounts/1/loan-eligibility?amount=5000").body());
+        assertEquals("{\"eligible\":false}", get("/accounts/3/loan-eligibility?amount=5000").body());
+    }
+
+    @Test
+    @DisplayName("HTTP: bad input, unknown accounts and wrong methods are rejected")
+    public void errors() throws Exception {
+        assertEquals(400, post("/accounts/1/deposit?amount=abc").statusCode());
+        assertEquals(404, post("/accounts/99/deposit?amount=1").statusCode());
+        assertEquals(404, post("/transfers?from=1&to=99&amount=1").statusCode());
+        assertEquals(405, get("/accounts/1/deposit?amount=1").statusCode());
+        assertEquals(100_000, source.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("HTTP: the load generator reports latency percentiles")
+    public void loadGenerator() throws Exception {
+        LoadGenerator.Report report = LoadGenerator.run("http://localhost:" + server.getPort(), 20, 30);
+
+        assertEquals(600, report.getRequests());
+        assertEquals(0, report.getErrors());
+        assertTrue(report.percentileNanos(50) <= report.percentileNanos(99));
+    }
+
+    private HttpResponse<String> post(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
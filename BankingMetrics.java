@@ -0,0 +1,136 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// BankingMetrics.java
+// Counters and latency histograms for deposits, withdrawals and transfers, labeled by outcome and by
+// the account's status. Account and TransactionProcessor report to the installed instance, if any;
+// with none installed the only cost on their hot path is one volatile read.
+//
+// Counters are LongAdders and the histograms are LatencyHistograms, so concurrent recording from
+// many threads does not contend on one cache line. Every operation is counted, but only one in
+// latencySampleRate is timed: System.nanoTime() alone can cost tens of nanoseconds on virtualized
+// hosts, and two of them per operation would cost more than the operation itself.
+// snapshot() renders everything as text.
+public class BankingMetrics {
+
+    public enum Operation {
+        DEPOSIT,
+        WITHDRAWAL,
+        TRANSFER
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final OperationResult[] RESULTS = OperationResult.values();
+    private static final Status[] STATUSES = Status.values();
+
+    public static final int DEFAULT_LATENCY_SAMPLE_RATE = 16;
+
+    // startTimer() result for an operation that is not timed
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static volatile BankingMetrics installed;
+
+    private final int sampleMask;
+
+    private final LongAdder[] byResult = new LongAdder[OPERATIONS.length * RESULTS.length];
+    private final LongAdder[] byStatus = new LongAdder[OPERATIONS.length * STATUSES.length];
+    private final LatencyHistogram[] latency = new LatencyHistogram[OPERATIONS.length];
+
+    public BankingMetrics() {
+        this(DEFAULT_LATENCY_SAMPLE_RATE);
+    }
+
+    // Times one in latencySampleRate operations (a power of two); 1 times all of them
+    public BankingMetrics(int latencySampleRate) {
+        if (latencySampleRate <= 0 || Integer.bitCount(latencySampleRate) != 1) {
+            throw new IllegalArgumentException("latencySampleRate must be a power of two");
+        }
+        this.sampleMask = latencySampleRate - 1;
+        for (int i = 0; i < byResult.length; i++) {
+            byResult[i] = new LongAdder();
+        }
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] = new LongAdder();
+        }
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LatencyHistogram();
+        }
+    }
+
+    // Makes Account and TransactionProcessor report here; null switches reporting off
+    public static void install(BankingMetrics metrics) {
+        installed = metrics;
+    }
+
+    public static BankingMetrics installed() {
+        return installed;
+    }
+
+    // Call before the operation and hand the result to record(); NOT_TIMED unless this one is sampled
+    public long startTimer() {
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) return NOT_TIMED;
+        return System.nanoTime();
+    }
+
+    public void record(Operation operation, Status status, OperationResult result, long started) {
+        byResult[operation.ordinal() * RESULTS.length + result.ordinal()].increment();
+        byStatus[operation.ordinal() * STATUSES.length + status.ordinal()].increment();
+        if (started != NOT_TIMED) latency[operation.ordinal()].record(System.nanoTime() - started);
+    }
+
+    public long count(Operation operation, OperationResult result) {
+        return byResult[operation.ordinal() * RESULTS.length + result.ordinal()].sum();
+    }
+
+    // Operations on accounts that had the given status, whatever the outcome
+    public long count(Operation operation, Status status) {
+        return byStatus[operation.ordinal() * STATUSES.length + status.ordinal()].sum();
+    }
+
+    // Only the sampled operations; see latencySampleRate
+    public LatencyHistogram latency(Operation operation) {
+        return latency[operation.ordinal()];
+    }
+
+    public void reset() {
+        for (LongAdder counter : byResult) {
+            counter.reset();
+        }
+        for (LongAdder counter : byStatus) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : latency) {
+            histogram.reset();
+        }
+    }
+
+    // One line per non-zero series, in the Prometheus text format
+    public String snapshot() {
+        StringBuilder out = new StringBuilder(2048);
+        for (Operation operation : OPERATIONS) {
+            String op = operation.name().toLowerCase();
+            for (OperationResult result : RESULTS) {
+                long value = count(operation, result);
+                if (value == 0) continue;
+                out.append("banking_operations_total{operation=\"").append(op)
+                        .append("\",outcome=\"").append(result.name()).append("\"} ").append(value).append('\n');
+            }
+            for (Status status : STATUSES) {
+                long value = count(operation, status);
+                if (value == 0) continue;
+                out.append("banking_operations_by_status_total{operation=\"").append(op)
+                        .append("\",status=\"").append(status.name()).append("\"} ").append(value).append('\n');
+            }
+            LatencyHistogram histogram = latency(operation);
+            long count = histogram.getCount();
+            if (count == 0) continue;
+            for (double quantile : new double[] {50, 90, 99, 99.9, 100}) {
+                out.append("banking_latency_nanos{operation=\"").append(op)
+                        .append("\",quantile=\"").append(quantile / 100).append("\"} ")
+                        .append(histogram.percentile(quantile)).append('\n');
+            }
+            out.append("banking_latency_nanos_count{operation=\"").append(op).append("\"} ").append(count).append('\n');
+        }
+        return out.toString();
+    }
+}
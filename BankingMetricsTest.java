@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankingMetricsTest {
+
+    private BankingMetrics metrics;
+
+    @BeforeEach
+    public void install() {
+        // time every operation so latency counts are exact
+        metrics = new BankingMetrics(1);
+        BankingMetrics.install(metrics);
+    }
+
+    @AfterEach
+    public void uninstall() {
+        BankingMetrics.install(null);
+    }
+
+    @Test
+    @DisplayName("Metrics: withdrawals are counted by rejection reason")
+    public void withdrawalRejectionReasons() {
+        Account verified = new Account(100, Status.VERIFIED, 700);
+        Account suspended = new Account(100, Status.SUSPENDED, 700);
+        Account lowCredit = new Account(100, Status.VERIFIED, 550);
+
+        assertTrue(verified.withdraw(10));
+        assertFalse(verified.withdraw(1000));
+        assertFalse(verified.withdraw(-5));
+        assertFalse(suspended.withdraw(10));
+        assertFalse(lowCredit.withdraw(10));
+
+        BankingMetrics.Operation op = BankingMetrics.Operation.WITHDRAWAL;
+        assertEquals(1, metrics.count(op, OperationResult.OK));
+        assertEquals(1, metrics.count(op, OperationResult.INSUFFICIENT_FUNDS));
+        assertEquals(1, metrics.count(op, OperationResult.NON_POSITIVE));
+        assertEquals(1, metrics.count(op, OperationResult.SUSPENDED));
+        assertEquals(1, metrics.count(op, OperationResult.CREDIT_INELIGIBLE));
+        assertEquals(4, metrics.count(op, Status.VERIFIED));
+        assertEquals(1, metrics.count(op, Status.SUSPENDED));
+        assertEquals(5, metrics.latency(op).getCount());
+    }
+
+    @Test
+    @DisplayName("Metrics: a transfer counts once, not as a withdrawal plus a deposit")
+    public void transferCountedOnce() {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+        Account closed = new Account(0, Status.CLOSED);
+
+        assertTrue(processor.processTransfer(source, target, 25));
+        assertFalse(processor.processTransfer(source, closed, 25));
+
+        assertEquals(1, metrics.count(BankingMetrics.Operation.TRANSFER, OperationResult.OK));
+        assertEquals(1, metrics.count(BankingMetrics.Operation.TRANSFER, OperationResult.CLOSED));
+        assertEquals(0, metrics.latency(BankingMetrics.Operation.WITHDRAWAL).getCount());
+        assertEquals(0, metrics.latency(BankingMetrics.Operation.DEPOSIT).getCount());
+    }
+
+    @Test
+    @DisplayName("Metrics: the text snapshot lists counters and latency quantiles")
+    public void textSnapshot() {
+        Account account = new Account(100, Status.UNVERIFIED);
+        assertFalse(account.deposit(10));
+
+        String snapshot = metrics.snapshot();
+        assertTrue(snapshot.contains("banking_operations_total{operation=\"deposit\",outcome=\"UNVERIFIED\"} 1"), snapshot);
+        assertTrue(snapshot.contains("banking_operations_by_status_total{operation=\"deposit\",status=\"UNVERIFIED\"} 1"), snapshot);
+        assertTrue(snapshot.contains("banking_latency_nanos{operation=\"deposit\",quantile=\"0.99\"}"), snapshot);
+        assertFalse(snapshot.contains("operation=\"transfer\""), snapshot);
+    }
+
+    @Test
+    @DisplayName("Histogram: percentiles stay within one bucket of the recorded values")
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        long p50 = histogram.percentile(50);
+        long p99 = histogram.percentile(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125, "p50 was " + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.125, "p99 was " + p99);
+        assertEquals(500_500, histogram.getMean(), 1);
+
+        for (long value : new long[] {0, 7, 8, 9, 1023, 1024, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value, "bucket of " + value);
+            if (bucket > 0) assertTrue(LatencyHistogram.upperBound(bucket - 1) < value, "bucket of " + value);
+        }
+    }
+
+    @Test
+    @DisplayName("Metrics: nothing is recorded when no instance is installed")
+    public void uninstalledRecordsNothing() {
+        BankingMetrics.install(null);
+        new Account(100, Status.VERIFIED).deposit(10);
+        assertEquals(0, metrics.latency(BankingMetrics.Operation.DEPOSIT).getCount());
+    }
+}
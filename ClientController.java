@@ -1,44 +1,95 @@
+import java.util.concurrent.TimeUnit;
+
 public class ClientController {
 
     private TransactionProcessor processor = new TransactionProcessor();
 
+    // outcomes of recent keyed transfers, so a client retry does not move the money twice
+    private final IdempotencyCache<OperationResult> recentTransfers =
+            new IdempotencyCache<>(100_000, 24, TimeUnit.HOURS);
+
 
     public String handleDeposit(Account account, String amountStr) {
-        try {
-            double amount = Double.parseDouble(amountStr);
-            boolean success = account.deposit(amount); 
-            return success ? "Deposit successful" : "Deposit failed";
-        } catch (NumberFormatException e) {
-            return "Error: Invalid input format";
-        }
+        return deposit(account, amountStr).message();
     }
 
  
     public String handleWithdraw(Account account, String amountStr) {
-        try {
-            double amount = Double.parseDouble(amountStr);
-            boolean success = account.withdraw(amount);
-            return success ? "Withdrawal successful" : "Withdrawal failed";
-        } catch (NumberFormatException e) {
-            return "Error: Invalid input format";
-        }
+        return withdraw(account, amountStr).message();
     }
 
 
     public String handleTransfer(Account source, Account target, String amountStr) {
+        return transfer(source, target, amountStr).message();
+    }
+
+    // A retry with the same idempotency key returns the first outcome without touching the accounts
+    public String handleTransfer(String idempotencyKey, Account source, Account target, String amountStr) {
+        return transfer(idempotencyKey, source, target, amountStr).message();
+    }
+
+    // Allocation-free versions of the handlers above: the amount is parsed straight into cents
+    // and bad input comes back as INVALID_INPUT instead of a caught NumberFormatException.
+
+    public ControllerResult deposit(Account account, CharSequence amount) {
+        return ControllerResult.ofDeposit(tryDeposit(account, amount));
+    }
+
+    public ControllerResult withdraw(Account account, CharSequence amount) {
+        return ControllerResult.ofWithdrawal(tryWithdraw(account, amount));
+    }
+
+    public ControllerResult transfer(Account source, Account target, CharSequence amount) {
+        return ControllerResult.ofTransfer(tryTransfer(source, target, amount));
+    }
+
+    public ControllerResult transfer(String idempotencyKey, Account source, Account target, CharSequence amount) {
+        return ControllerResult.ofTransfer(tryTransfer(idempotencyKey, source, target, amount));
+    }
+
+    // The same operations, answering with the actual cause of a failure (INVALID_AMOUNT for bad input)
+
+    public OperationResult tryDeposit(Account account, CharSequence amount) {
+        long cents = AmountParser.parseCents(amount);
+        if (cents == AmountParser.INVALID) return OperationResult.INVALID_AMOUNT;
+        return account.tryDepositCents(cents);
+    }
+
+    public OperationResult tryWithdraw(Account account, CharSequence amount) {
+        long cents = AmountParser.parseCents(amount);
+        if (cents == AmountParser.INVALID) return OperationResult.INVALID_AMOUNT;
+        return account.tryWithdrawCents(cents);
+    }
+
+    public OperationResult tryTransfer(Account source, Account target, CharSequence amount) {
+        long cents = AmountParser.parseCents(amount);
+        if (cents == AmountParser.INVALID) return OperationResult.INVALID_AMOUNT;
+        return processor.tryTransferCents(source, target, cents);
+    }
+
+    // Requests that cannot move money because of their own input are answered without remembering
+    // the key, so a corrected retry under the same key still runs
+    public OperationResult tryTransfer(String idempotencyKey, Account source, Account target, CharSequence amount) {
+        if (idempotencyKey == null) return tryTransfer(source, target, amount);
+        long cents = AmountParser.parseCents(amount);
+        if (cents == AmountParser.INVALID) return OperationResult.INVALID_AMOUNT;
+        if (source == null || target == null || cents <= 0) return processor.tryTransferCents(source, target, cents);
+
         try {
-            double amount = Double.parseDouble(amountStr);
-            boolean success = processor.processTransfer(source, target, amount);
-            return success ? "Transfer successful" : "Transfer failed";
-        } catch (NumberFormatException e) {
-            return "Error: Invalid input format";
+            return recentTransfers.computeIfAbsent(idempotencyKey, new TransferRequest(source, target, cents),
+                    () -> processor.tryTransferCents(source, target, cents));
+        } catch (IdempotencyCache.KeyConflictException e) {
+            return OperationResult.IDEMPOTENCY_CONFLICT;
         }
     }
 
     public String handleViewStatement(Account account) {
- 
-        double balance = account.getBalance();
-        return "Balance: $" + String.format("%.2f", balance);
+        return appendStatement(account, new StringBuilder(24)).toString();
+    }
+
+    // Writes "Balance: $1234.56" into a caller-owned builder, so a reused builder allocates nothing
+    public StringBuilder appendStatement(Account account, StringBuilder out) {
+        return AmountParser.appendCents(out.append("Balance: $"), account.getBalanceCents());
     }
 
     public String checkCreditEligibility(Account account) {
@@ -50,8 +101,38 @@ public class ClientController {
     }
 
     public boolean isEligibleForLoan(Account account, double loanAmount) {
+        return meetsLoanCriteria(account.getStatus(), account.isCreditEligible());
+    }
+
+    // The loan rule on its own, shared with EligibilityIndex
+    static boolean meetsLoanCriteria(Status status, boolean creditEligible) {
         // Must be credit eligible and account must be in good standing
-        return account.isCreditEligible() && 
-               account.getStatus() == Status.VERIFIED;
+        return creditEligible && 
+               status == Status.VERIFIED;
+    }
+
+    // What a keyed transfer asked for, so a key reused for another transfer is caught
+    private static final class TransferRequest {
+        final Account source;
+        final Account target;
+        final long cents;
+
+        TransferRequest(Account source, Account target, long cents) {
+            this.source = source;
+            this.target = target;
+            this.cents = cents;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TransferRequest)) return false;
+            TransferRequest other = (TransferRequest) o;
+            return source == other.source && target == other.target && cents == other.cents;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(cents) * 31 + System.identityHashCode(source) ^ System.identityHashCode(target);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+// ControllerResult.java
+// Outcome of a ClientController request. The constants are preallocated, so returning one costs
+// nothing; message() is the text the String-returning handle* methods have always produced.
+public enum ControllerResult {
+    DEPOSIT_SUCCESSFUL("Deposit successful"),
+    DEPOSIT_FAILED("Deposit failed"),
+    WITHDRAWAL_SUCCESSFUL("Withdrawal successful"),
+    WITHDRAWAL_FAILED("Withdrawal failed"),
+    TRANSFER_SUCCESSFUL("Transfer successful"),
+    TRANSFER_FAILED("Transfer failed"),
+    INVALID_INPUT("Error: Invalid input format");
+
+    private final String message;
+
+    ControllerResult(String message) {
+        this.message = message;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    // The controller result for an account operation's outcome; the cause itself stays in the OperationResult
+
+    static ControllerResult ofDeposit(OperationResult result) {
+        if (result == OperationResult.OK) return DEPOSIT_SUCCESSFUL;
+        return result == OperationResult.INVALID_AMOUNT ? INVALID_INPUT : DEPOSIT_FAILED;
+    }
+
+    static ControllerResult ofWithdrawal(OperationResult result) {
+        if (result == OperationResult.OK) return WITHDRAWAL_SUCCESSFUL;
+        return result == OperationResult.INVALID_AMOUNT ? INVALID_INPUT : WITHDRAWAL_FAILED;
+    }
+
+    static ControllerResult ofTransfer(OperationResult result) {
+        if (result == OperationResult.OK) return TRANSFER_SUCCESSFUL;
+        return result == OperationResult.INVALID_AMOUNT ? INVALID_INPUT : TRANSFER_FAILED;
+    }
+
+    public boolean isSuccess() {
+        return this == DEPOSIT_SUCCESSFUL || this == WITHDRAWAL_SUCCESSFUL || this == TRANSFER_SUCCESSFUL;
+    }
+}
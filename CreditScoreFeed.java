@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// CreditScoreFeed.java
+// Bulk ingestion of credit score updates into an AccountStore from a file of "accountId,score" lines.
+//
+// The file is read through one reusable buffer and each line is parsed straight from its bytes, so
+// no String or boxed number is created per row. Parsed rows collect in two int arrays and are
+// applied a batch at a time. Only accounts whose eligibility differs after their batch from what
+// it was before it are passed on to the Listener, once each and once the batch has been written,
+// so downstream work such as EligibilityIndex updates or notifications scales with the crossings,
+// not with the feed size. An account that crosses the threshold and back inside one batch is not
+// reported.
+//
+// Blank lines are skipped. Lines that do not parse, name an id the store does not have, or carry a
+// score outside the short range are counted as rejected and ingestion carries on.
+public class CreditScoreFeed {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private static final int DEFAULT_BUFFER_BYTES = 1 << 16;
+    private static final long INVALID = Long.MIN_VALUE;
+
+    // Called once for each account whose eligibility changed over a batch, after the batch is applied
+    public interface Listener {
+        void onEligibilityChange(int id, boolean creditEligible);
+    }
+
+    // A listener that keeps an EligibilityIndex of the store's accounts current
+    public static Listener reindexing(AccountStore store, EligibilityIndex index) {
+        return (id, creditEligible) -> index.update(id, store.getStatus(id), store.getCreditScore(id));
+    }
+
+    private final AccountStore store;
+    private final Listener listener;
+    private final int batchSize;
+    private final int bufferBytes;
+
+    public CreditScoreFeed(AccountStore store, Listener listener) {
+        this(store, listener, DEFAULT_BATCH_SIZE, DEFAULT_BUFFER_BYTES);
+    }
+
+    CreditScoreFeed(AccountStore store, Listener listener, int batchSize, int bufferBytes) {
+        if (batchSize <= 0 || bufferBytes <= 0) throw new IllegalArgumentException("sizes must be positive");
+        this.store = store;
+        this.listener = listener;
+        this.batchSize = batchSize;
+        this.bufferBytes = bufferBytes;
+    }
+
+    public Report ingest(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ingest(channel);
+        }
+    }
+
+    public Report ingest(ReadableByteChannel in) throws IOException {
+        long started = System.nanoTime();
+        Batch batch = new Batch();
+        ByteBuffer buffer = ByteBuffer.allocate(bufferBytes);
+        byte[] bytes = buffer.array();
+        long rows = 0;
+        long rejected = 0;
+
+        boolean eof = false;
+        while (!eof) {
+            eof = in.read(buffer) < 0;
+            int end = buffer.position();
+            int lineStart = 0;
+            for (int i = 0; i < end; i++) {
+                if (bytes[i] != '\n') continue;
+                int result = parseLine(bytes, lineStart, i, batch);
+                rows += result & 1;
+                rejected += result >>> 1;
+                lineStart = i + 1;
+            }
+            if (eof && lineStart < end) {
+                // last line without a newline
+                int result = parseLine(bytes, lineStart, end, batch);
+                rows += result & 1;
+                rejected += result >>> 1;
+                lineStart = end;
+            }
+            if (lineStart == 0 && end == bytes.length) {
+                throw new IOException("credit score line longer than " + bytes.length + " bytes");
+            }
+            // keep the unfinished line for the next read
+            buffer.position(lineStart).limit(end);
+            buffer.compact();
+        }
+        batch.apply();
+        return new Report(rows + rejected, batch.applied, rejected, batch.crossings, System.nanoTime() - started);
+    }
+
+    // Parses bytes [from, to) as "id,score" into the batch; returns 1 for a row, 2 for a rejected
+    // line and 0 for a blank one
+    private int parseLine(byte[] bytes, int from, int to, Batch batch) {
+        if (to > from && bytes[to - 1] == '\r') to--;
+        if (to == from) return 0;
+
+        int comma = from;
+        while (comma < to && bytes[comma] != ',') comma++;
+        long id = parseLong(bytes, from, comma);
+        long score = comma < to ? parseLong(bytes, comma + 1, to) : INVALID;
+        if (id == INVALID || score == INVALID || id < 0 || id >= store.size()
+                || score < Short.MIN_VALUE || score > Short.MAX_VALUE) {
+            return 2;
+        }
+        batch.add((int) id, (int) score);
+        return 1;
+    }
+
+    // Optional surrounding spaces, an optional '-' and up to 18 digits; INVALID otherwise
+    private static long parseLong(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] == ' ') from++;
+        while (to > from && bytes[to - 1] == ' ') to--;
+        boolean negative = from < to && bytes[from] == '-';
+        if (negative) from++;
+        if (from == to || to - from > 18) return INVALID;
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) return INVALID;
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private final class Batch {
+        private final int[] ids = new int[batchSize];
+        private final int[] scores = new int[batchSize];
+        private final int[] crossed = new int[batchSize];
+        // the distinct ids of the batch, each with its eligibility before the batch and its slot in seen
+        private final int[] distinct = new int[batchSize];
+        private final boolean[] wasEligible = new boolean[batchSize];
+        private final int[] slots = new int[batchSize];
+        // open addressing set of the batch's ids, stored as id + 1 so 0 is an empty slot; at most
+        // half full, and emptied again after every batch
+        private final int[] seen = new int[Integer.highestOneBit(batchSize) << 2];
+        private int size;
+        private long applied;
+        private long crossings;
+
+        void add(int id, int score) {
+            ids[size] = id;
+            scores[size] = score;
+            if (++size == batchSize) apply();
+        }
+
+        void apply() {
+            int threshold = Account.getCreditScoreThreshold();
+            int accounts = 0;
+            for (int i = 0; i < size; i++) {
+                int id = ids[i];
+                int slot = slotOf(id);
+                if (seen[slot] == 0) {
+                    seen[slot] = id + 1;
+                    slots[accounts] = slot;
+                    distinct[accounts] = id;
+                    wasEligible[accounts++] = store.getCreditScore(id) >= threshold;
+                }
+                store.setCreditScore(id, scores[i]);
+            }
+
+            int count = 0;
+            for (int i = 0; i < accounts; i++) {
+                int id = distinct[i];
+                if (wasEligible[i] != store.getCreditScore(id) >= threshold) crossed[count++] = i;
+                seen[slots[i]] = 0;
+            }
+            applied += size;
+            crossings += count;
+            size = 0;
+
+            for (int i = 0; i < count; i++) {
+                int account = crossed[i];
+                listener.onEligibilityChange(distinct[account], !wasEligible[account]);
+            }
+        }
+
+        // The id's slot in seen, or the empty slot where it belongs
+        private int slotOf(int id) {
+            int mask = seen.length - 1;
+            int hash = id * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (seen[slot] != 0 && seen[slot] != id + 1) slot = (slot + 1) & mask;
+            return slot;
+        }
+    }
+
+    // Counts and throughput of one ingestion
+    public static final class Report {
+
+        private final long lines;
+        private final long applied;
+        private final long rejected;
+        private final long crossings;
+        private final long elapsedNanos;
+
+        Report(long lines, long applied, long rejected, long crossings, long elapsedNanos) {
+            this.lines = lines;
+            this.applied = applied;
+            this.rejected = rejected;
+            this.crossings = crossings;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // non-blank lines read
+        public long getLines() {
+            return lines;
+        }
+
+        public long getApplied() {
+            return applied;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        // accounts whose eligibility changed over their batch
+        public long getCrossings() {
+            return crossings;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CreditScoreFeed: %,d lines, %,d applied, %,d rejected, %,d crossings, %.1f ms",
+                    lines, applied, rejected, crossings, elapsedNanos / 1e6);
+        }
+    }
+}
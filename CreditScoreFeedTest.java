@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreditScoreFeedTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Score feed: only threshold crossings reach the listener")
+    public void notifiesOnlyCrossings() throws Exception {
+        AccountStore store = new AccountStore(4);
+        store.allocate(0, Status.VERIFIED, 700);
+        store.allocate(0, Status.VERIFIED, 550);
+        store.allocate(0, Status.VERIFIED, 650);
+        store.allocate(0, Status.VERIFIED, 500);
+        Path file = dir.resolve("scores.csv");
+        Files.write(file, "0,720\n1, 610\r\n\n2,599\n3,580\n".getBytes(StandardCharsets.US_ASCII));
+
+        List<String> crossings = new ArrayList<>();
+        CreditScoreFeed.Report report = new CreditScoreFeed(store,
+                (id, eligible) -> crossings.add(id + "=" + eligible)).ingest(file);
+
+        assertEquals(List.of("1=true", "2=false"), crossings);
+        assertEquals(4, report.getApplied());
+        assertEquals(2, report.getCrossings());
+        assertEquals(720, store.getCreditScore(0));
+        assertEquals(580, store.getCreditScore(3));
+    }
+
+    @Test
+    @DisplayName("Score feed: an account updated twice in a batch is reported once, by its net change")
+    public void reportsNetChangePerBatch() throws Exception {
+        AccountStore store = new AccountStore(3);
+        store.allocate(0, Status.VERIFIED, 650);
+        store.allocate(0, Status.VERIFIED, 550);
+        store.allocate(0, Status.VERIFIED, 550);
+        Path file = dir.resolve("scores.csv");
+        Files.write(file, "0,550\n1,650\n2,650\n0,650\n1,700\n2,500\n".getBytes(StandardCharsets.US_ASCII));
+
+        List<String> crossings = new ArrayList<>();
+        CreditScoreFeed.Report report = new CreditScoreFeed(store,
+                (id, eligible) -> crossings.add(id + "=" + eligible)).ingest(file);
+
+        assertEquals(List.of("1=true"), crossings);
+        assertEquals(6, report.getApplied());
+        assertEquals(1, report.getCrossings());
+        assertEquals(650, store.getCreditScore(0));
+        assertEquals(700, store.getCreditScore(1));
+        assertEquals(500, store.getCreditScore(2));
+    }
+
+    @Test
+    @DisplayName("Score feed: bad lines are counted and skipped, a last line without newline is read")
+    public void rejectsBadLines() throws Exception {
+        AccountStore store = new AccountStore(2);
+        store.allocate(0, Status.VERIFIED, 700);
+        store.allocate(0, Status.VERIFIED, 700);
+        Path file = dir.resolve("scores.csv");
+        Files.write(file, "accountId,score\n7,650\n0,\n0,abc\n0,40000\n-1,650\n0,-5\n1,640".getBytes(StandardCharsets.US_ASCII));
+
+        CreditScoreFeed.Report report = new CreditScoreFeed(store, (id, eligible) -> { }).ingest(file);
+
+        assertEquals(8, report.getLines());
+        assertEquals(2, report.getApplied());
+        assertEquals(6, report.getRejected());
+        assertEquals(-5, store.getCreditScore(0));
+        assertEquals(640, store.getCreditScore(1));
+    }
+
+    @Test
+    @DisplayName("Score feed: a large feed across small buffers and batches keeps the eligibility index exact")
+    public void largeFeedKeepsIndexCurrent() throws Exception {
+        int accounts = 5_000;
+        AccountStore store = new AccountStore(accounts);
+        Random random = new Random(20);
+        for (int i = 0; i < accounts; i++) {
+            store.allocate(0, Status.VERIFIED, 500 + random.nextInt(200));
+        }
+        EligibilityIndex index = new EligibilityIndex(accounts);
+        index.indexAll(store);
+
+        int[] expected = new int[accounts];
+        for (int i = 0; i < accounts; i++) expected[i] = store.getCreditScore(i);
+        Path file = dir.resolve("scores.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int row = 0; row < 200_000; row++) {
+                int id = random.nextInt(accounts);
+                int score = 500 + random.nextInt(200);
+                expected[id] = score;
+                out.write(id + "," + score + "\n");
+            }
+        }
+
+        CreditScoreFeed.Report report = new CreditScoreFeed(store, CreditScoreFeed.reindexing(store, index), 1000, 37)
+                .ingest(file);
+
+        assertEquals(200_000, report.getApplied());
+        assertEquals(0, report.getRejected());
+        assertTrue(report.getCrossings() < report.getApplied());
+        int eligible = 0;
+        for (int i = 0; i < accounts; i++) {
+            assertEquals(expected[i], store.getCreditScore(i));
+            assertEquals(expected[i] >= 600, index.test(EligibilityIndex.Predicate.CREDIT_ELIGIBLE, i), "id " + i);
+            if (expected[i] >= 600) eligible++;
+        }
+        assertEquals(eligible, index.count(EligibilityIndex.Predicate.CREDIT_ELIGIBLE));
+    }
+}
@@ -0,0 +1,158 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.IntConsumer;
+
+// EligibilityIndex.java
+// One bitmap per eligibility predicate, with bit i standing for account id i. Attached accounts keep
+// their bits current through AccountObserver callbacks on status and credit score changes, so a
+// population question such as "who is loan-eligible?" becomes a popcount or a walk over set bits
+// 64 accounts at a time instead of a visit to every Account.
+public class EligibilityIndex implements AccountObserver {
+
+    public enum Predicate {
+        CREDIT_ELIGIBLE,
+        VERIFIED,
+        // same rule as ClientController.isEligibleForLoan
+        LOAN_ELIGIBLE
+    }
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final Predicate[] PREDICATES = Predicate.values();
+
+    private final long[][] bitmaps = new long[PREDICATES.length][];
+    private final int capacity;
+
+    public EligibilityIndex(int capacity) {
+        this.capacity = capacity;
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = new long[(capacity + 63) >>> 6];
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Indexes the account's current state and keeps following its changes
+    public void attach(Account account) {
+        account.lock().lock();
+        try {
+            update(toIndex(account.getId()), account.getStatus(), account.getCreditScore());
+            account.addObserver(this);
+        } finally {
+            account.lock().unlock();
+        }
+    }
+
+    public void detach(Account account) {
+        account.removeObserver(this);
+        clear(toIndex(account.getId()));
+    }
+
+    @Override
+    public void onStatusChange(Account account, StatusEvent event, Status from, Status to) {
+        update(toIndex(account.getId()), to, account.getCreditScore());
+    }
+
+    @Override
+    public void onCreditScoreChange(Account account, int from, int to) {
+        update(toIndex(account.getId()), account.getStatus(), to);
+    }
+
+    // Sets the bits of one account from its status and credit score; also used to index AccountStore ids
+    public void update(int id, Status status, int creditScore) {
+        checkIndex(id);
+        boolean creditEligible = creditScore >= Account.getCreditScoreThreshold();
+        set(Predicate.CREDIT_ELIGIBLE, id, creditEligible);
+        set(Predicate.VERIFIED, id, status == Status.VERIFIED);
+        set(Predicate.LOAN_ELIGIBLE, id, ClientController.meetsLoanCriteria(status, creditEligible));
+    }
+
+    public void clear(int id) {
+        checkIndex(id);
+        for (Predicate predicate : PREDICATES) {
+            set(predicate, id, false);
+        }
+    }
+
+    // Indexes every account of the store in one pass
+    public void indexAll(AccountStore store) {
+        for (int id = 0, n = store.size(); id < n; id++) {
+            update(id, store.getStatus(id), store.getCreditScore(id));
+        }
+    }
+
+    public boolean test(Predicate predicate, int id) {
+        long word = (long) WORDS.getVolatile(bitmaps[predicate.ordinal()], checkIndex(id) >>> 6);
+        return (word & (1L << id)) != 0;
+    }
+
+    public int count(Predicate predicate) {
+        int count = 0;
+        for (long word : bitmaps[predicate.ordinal()]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // Accounts matching both predicates
+    public int countAnd(Predicate a, Predicate b) {
+        long[] x = bitmaps[a.ordinal()];
+        long[] y = bitmaps[b.ordinal()];
+        int count = 0;
+        for (int i = 0; i < x.length; i++) {
+            count += Long.bitCount(x[i] & y[i]);
+        }
+        return count;
+    }
+
+    // Accounts matching a but not b, e.g. credit-eligible but not VERIFIED
+    public int countAndNot(Predicate a, Predicate b) {
+        long[] x = bitmaps[a.ordinal()];
+        long[] y = bitmaps[b.ordinal()];
+        int count = 0;
+        for (int i = 0; i < x.length; i++) {
+            count += Long.bitCount(x[i] & ~y[i]);
+        }
+        return count;
+    }
+
+    // Calls the consumer with every matching account id, in ascending order
+    public void forEach(Predicate predicate, IntConsumer consumer) {
+        long[] words = bitmaps[predicate.ordinal()];
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                consumer.accept((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    // Copies the bitmap words out, e.g. to combine with other bitmaps
+    public long[] snapshot(Predicate predicate) {
+        return bitmaps[predicate.ordinal()].clone();
+    }
+
+    private void set(Predicate predicate, int id, boolean value) {
+        long[] words = bitmaps[predicate.ordinal()];
+        long mask = 1L << id;
+        if (value) {
+            WORDS.getAndBitwiseOr(words, id >>> 6, mask);
+        } else {
+            WORDS.getAndBitwiseAnd(words, id >>> 6, ~mask);
+        }
+    }
+
+    private int toIndex(long accountId) {
+        if (accountId < 0 || accountId >= capacity) {
+            throw new IllegalArgumentException("account id " + accountId + " is outside the index capacity " + capacity);
+        }
+        return (int) accountId;
+    }
+
+    private int checkIndex(int id) {
+        if (id < 0 || id >= capacity) throw new IndexOutOfBoundsException("id " + id + " outside capacity " + capacity);
+        return id;
+    }
+}
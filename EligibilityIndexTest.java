@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EligibilityIndexTest {
+
+    @Test
+    @DisplayName("Index: bitmaps follow status and credit score changes")
+    public void followsChanges() {
+        EligibilityIndex index = new EligibilityIndex(10);
+        Account account = new Account(3L, 100, Status.UNVERIFIED, 700);
+        index.attach(account);
+
+        assertTrue(index.test(EligibilityIndex.Predicate.CREDIT_ELIGIBLE, 3));
+        assertFalse(index.test(EligibilityIndex.Predicate.LOAN_ELIGIBLE, 3));
+
+        account.verify();
+        assertTrue(index.test(EligibilityIndex.Predicate.VERIFIED, 3));
+        assertTrue(index.test(EligibilityIndex.Predicate.LOAN_ELIGIBLE, 3));
+
+        account.setCreditScore(550);
+        assertFalse(index.test(EligibilityIndex.Predicate.CREDIT_ELIGIBLE, 3));
+        assertFalse(index.test(EligibilityIndex.Predicate.LOAN_ELIGIBLE, 3));
+
+        index.detach(account);
+        account.setCreditScore(800);
+        assertFalse(index.test(EligibilityIndex.Predicate.CREDIT_ELIGIBLE, 3));
+    }
+
+    @Test
+    @DisplayName("Index: population queries agree with a full scan and the controller")
+    public void matchesFullScan() {
+        Random random = new Random(5);
+        ClientController controller = new ClientController();
+        EligibilityIndex index = new EligibilityIndex(1000);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Account account = new Account(i, 0, Status.values()[random.nextInt(4)], 500 + random.nextInt(250));
+            index.attach(account);
+            accounts.add(account);
+        }
+        for (int i = 0; i < 5000; i++) {
+            Account account = accounts.get(random.nextInt(accounts.size()));
+            switch (random.nextInt(4)) {
+                case 0: account.verify(); break;
+                case 1: account.violation(); break;
+                case 2: account.appeal(); break;
+                default: account.setCreditScore(500 + random.nextInt(250)); break;
+            }
+        }
+
+        List<Integer> loanEligible = new ArrayList<>();
+        int credit = 0;
+        int verified = 0;
+        int creditNotVerified = 0;
+        for (Account account : accounts) {
+            if (controller.isEligibleForLoan(account, 1000)) loanEligible.add((int) account.getId());
+            if (account.isCreditEligible()) credit++;
+            if (account.getStatus() == Status.VERIFIED) verified++;
+            if (account.isCreditEligible() && account.getStatus() != Status.VERIFIED) creditNotVerified++;
+        }
+
+        List<Integer> indexed = new ArrayList<>();
+        index.forEach(EligibilityIndex.Predicate.LOAN_ELIGIBLE, indexed::add);
+        assertEquals(loanEligible, indexed);
+        assertEquals(credit, index.count(EligibilityIndex.Predicate.CREDIT_ELIGIBLE));
+        assertEquals(verified, index.count(EligibilityIndex.Predicate.VERIFIED));
+        assertEquals(loanEligible.size(),
+                index.countAnd(EligibilityIndex.Predicate.CREDIT_ELIGIBLE, EligibilityIndex.Predicate.VERIFIED));
+        assertEquals(creditNotVerified,
+                index.countAndNot(EligibilityIndex.Predicate.CREDIT_ELIGIBLE, EligibilityIndex.Predicate.VERIFIED));
+    }
+
+    @Test
+    @DisplayName("Index: an AccountStore can be indexed in one pass")
+    public void indexesStore() {
+        AccountStore store = new AccountStore(200);
+        for (int i = 0; i < 200; i++) {
+            store.allocate(0, i % 4 == 0 ? Status.VERIFIED : Status.SUSPENDED, i < 100 ? 700 : 500);
+        }
+        EligibilityIndex index = new EligibilityIndex(store.capacity());
+        index.indexAll(store);
+
+        assertEquals(100, index.count(EligibilityIndex.Predicate.CREDIT_ELIGIBLE));
+        assertEquals(50, index.count(EligibilityIndex.Predicate.VERIFIED));
+        assertEquals(25, index.count(EligibilityIndex.Predicate.LOAN_ELIGIBLE));
+    }
+
+    @Test
+    @DisplayName("Index: account ids outside the capacity are rejected")
+    public void rejectsIdsOutsideCapacity() {
+        EligibilityIndex index = new EligibilityIndex(8);
+        assertThrows(IllegalArgumentException.class, () -> index.attach(new Account(8L, 0, Status.VERIFIED, 700)));
+    }
+}
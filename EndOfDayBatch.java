@@ -0,0 +1,220 @@
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// EndOfDayBatch.java
+// Nightly interest and fee run over every account in an AccountStore.
+//
+// VERIFIED accounts whose credit score meets the threshold earn interest (basis points of the
+// balance, rounded down); every other account except CLOSED ones pays a flat fee, never more than
+// its balance. CLOSED accounts are left alone.
+//
+// The population is cut into fixed chunks of chunkSize ids (4096 ids are 32KB of balances, so a
+// chunk stays in L1/L2 while it is worked on) and the chunks are spread over a ForkJoinPool. Each
+// chunk is one tight loop over the store's primitive columns: the credit threshold is read once
+// per run instead of once per account, and nothing is allocated per account. Every chunk writes
+// one END_OF_DAY summary record to the journal.
+//
+// Chunk boundaries depend only on chunkSize and each chunk's totals are kept in its own slot and
+// added up in chunk order at the end, so the totals and balances are the same for any number of
+// threads. Like AccountStore.applyEventToAll, the run must be the only writer to the store.
+public class EndOfDayBatch {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private static final byte VERIFIED = (byte) Status.VERIFIED.ordinal();
+    private static final byte CLOSED = (byte) Status.CLOSED.ordinal();
+
+    // per-chunk totals, in this order, at chunk * TOTALS
+    private static final int INTEREST = 0;
+    private static final int FEES = 1;
+    private static final int CREDITED = 2;
+    private static final int CHARGED = 3;
+    private static final int TOTALS = 4;
+
+    private final int interestBasisPoints;
+    private final long feeCents;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public EndOfDayBatch(int interestBasisPoints, long feeCents) {
+        this(interestBasisPoints, feeCents, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public EndOfDayBatch(int interestBasisPoints, long feeCents, int chunkSize, ForkJoinPool pool) {
+        if (interestBasisPoints < 0 || feeCents < 0) throw new IllegalArgumentException("rates must not be negative");
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+        this.interestBasisPoints = interestBasisPoints;
+        this.feeCents = feeCents;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    // Runs the batch over every account in the store; the journal may be null
+    public Report run(AccountStore store, TransactionJournal journal) {
+        long started = System.nanoTime();
+        int accounts = store.size();
+        int chunks = (accounts + chunkSize - 1) / chunkSize;
+        long[] totals = new long[chunks * TOTALS];
+
+        // invoke returns once every chunk has joined; the fence publishes the plain writes
+        // to readers that use getVolatile
+        pool.invoke(new Chunks(store, journal, Account.getCreditScoreThreshold(), accounts, 0, chunks, totals));
+        VarHandle.fullFence();
+
+        long interest = 0;
+        long fees = 0;
+        long credited = 0;
+        long charged = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int base = chunk * TOTALS;
+            interest += totals[base + INTEREST];
+            fees += totals[base + FEES];
+            credited += totals[base + CREDITED];
+            charged += totals[base + CHARGED];
+        }
+        return new Report(accounts, chunks, credited, charged, interest, fees, System.nanoTime() - started);
+    }
+
+    // Splits the chunk range in halves until one chunk is left, then runs it
+    private final class Chunks extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        // a task is never serialized; the store and journal stay with the run that forked it
+        private final transient AccountStore store;
+        private final transient TransactionJournal journal;
+        private final int threshold;
+        private final int accounts;
+        private final int firstChunk;
+        private final int endChunk;
+        private final long[] totals;
+
+        Chunks(AccountStore store, TransactionJournal journal, int threshold, int accounts,
+               int firstChunk, int endChunk, long[] totals) {
+            this.store = store;
+            this.journal = journal;
+            this.threshold = threshold;
+            this.accounts = accounts;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+            this.totals = totals;
+        }
+
+        @Override
+        protected void compute() {
+            if (endChunk - firstChunk > 1) {
+                int middle = (firstChunk + endChunk) >>> 1;
+                invokeAll(new Chunks(store, journal, threshold, accounts, firstChunk, middle, totals),
+                        new Chunks(store, journal, threshold, accounts, middle, endChunk, totals));
+                return;
+            }
+            int from = firstChunk * chunkSize;
+            int to = Math.min(accounts, from + chunkSize);
+            applyChunk(store, threshold, from, to, totals, firstChunk * TOTALS);
+            if (journal != null) {
+                int base = firstChunk * TOTALS;
+                journal.recordEndOfDay(from, to - from, totals[base + INTEREST], totals[base + FEES]);
+            }
+        }
+    }
+
+    private void applyChunk(AccountStore store, int threshold, int from, int to, long[] totals, int base) {
+        long[] balances = store.balanceColumn();
+        byte[] statuses = store.statusColumn();
+        short[] scores = store.creditScoreColumn();
+        int bps = interestBasisPoints;
+        long fee = feeCents;
+
+        long interest = 0;
+        long fees = 0;
+        long credited = 0;
+        long charged = 0;
+        for (int i = from; i < to; i++) {
+            long balance = balances[i];
+            byte status = statuses[i];
+            if (status == VERIFIED && scores[i] >= threshold) {
+                // floor(balance * bps / 10_000) without overflowing the product
+                long earned = balance / 10_000 * bps + balance % 10_000 * bps / 10_000;
+                earned = Math.min(Math.max(earned, 0), Long.MAX_VALUE - balance);
+                balances[i] = balance + earned;
+                interest += earned;
+                credited++;
+            } else if (status != CLOSED) {
+                long charge = Math.min(fee, Math.max(balance, 0));
+                balances[i] = balance - charge;
+                fees += charge;
+                charged++;
+            }
+        }
+        totals[base + INTEREST] = interest;
+        totals[base + FEES] = fees;
+        totals[base + CREDITED] = credited;
+        totals[base + CHARGED] = charged;
+    }
+
+    // Totals and throughput of one run
+    public static final class Report {
+
+        private final int accounts;
+        private final int chunks;
+        private final long credited;
+        private final long charged;
+        private final long interestCents;
+        private final long feeCents;
+        private final long elapsedNanos;
+
+        Report(int accounts, int chunks, long credited, long charged, long interestCents, long feeCents,
+               long elapsedNanos) {
+            this.accounts = accounts;
+            this.chunks = chunks;
+            this.credited = credited;
+            this.charged = charged;
+            this.interestCents = interestCents;
+            this.feeCents = feeCents;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getAccounts() {
+            return accounts;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        // accounts that earned interest
+        public long getCredited() {
+            return credited;
+        }
+
+        // accounts that paid a fee
+        public long getCharged() {
+            return charged;
+        }
+
+        public long getInterestCents() {
+            return interestCents;
+        }
+
+        public long getFeeCents() {
+            return feeCents;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getAccountsPerSecond() {
+            return elapsedNanos == 0 ? 0 : accounts * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("EndOfDayBatch: %,d accounts in %,d chunks, %,d credited (%,d cents), "
+                            + "%,d charged (%,d cents), %.1f ms, %,.0f accounts/s",
+                    accounts, chunks, credited, interestCents, charged, feeCents, elapsedNanos / 1e6,
+                    getAccountsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EndOfDayBatchTest {
+
+    @TempDir
+    Path dir;
+
+    private static AccountStore population(int count) {
+        Random random = new Random(19);
+        AccountStore store = new AccountStore(count);
+        for (int i = 0; i < count; i++) {
+            store.allocate(random.nextInt(10_000_000), Status.values()[random.nextInt(4)], 500 + random.nextInt(250));
+        }
+        return store;
+    }
+
+    @Test
+    @DisplayName("End of day: interest for eligible verified accounts, capped fees for the rest")
+    public void appliesRules() {
+        AccountStore store = new AccountStore(5);
+        store.allocate(1_000_000, Status.VERIFIED, 700);
+        store.allocate(1_000_000, Status.VERIFIED, 599);
+        store.allocate(300, Status.SUSPENDED, 700);
+        store.allocate(1_000_000, Status.UNVERIFIED, 700);
+        store.allocate(1_000_000, Status.CLOSED, 700);
+
+        EndOfDayBatch.Report report = new EndOfDayBatch(15, 500).run(store, null);
+
+        assertEquals(1_001_500, store.getBalanceCents(0));
+        assertEquals(999_500, store.getBalanceCents(1), "Below the credit threshold pays the fee");
+        assertEquals(0, store.getBalanceCents(2), "The fee never takes the balance below zero");
+        assertEquals(999_500, store.getBalanceCents(3));
+        assertEquals(1_000_000, store.getBalanceCents(4), "Closed accounts are left alone");
+        assertEquals(1, report.getCredited());
+        assertEquals(3, report.getCharged());
+        assertEquals(1_500, report.getInterestCents());
+        assertEquals(1_300, report.getFeeCents());
+    }
+
+    @Test
+    @DisplayName("End of day: totals and balances do not depend on the number of threads")
+    public void deterministicAcrossParallelism() {
+        int count = 100_000;
+        AccountStore single = population(count);
+        AccountStore parallel = population(count);
+        long before = single.totalBalanceCents();
+
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            EndOfDayBatch.Report a = new EndOfDayBatch(3, 250, 1000, one).run(single, null);
+            EndOfDayBatch.Report b = new EndOfDayBatch(3, 250, 1000, four).run(parallel, null);
+
+            assertEquals(100, a.getChunks());
+            assertEquals(a.getInterestCents(), b.getInterestCents());
+            assertEquals(a.getFeeCents(), b.getFeeCents());
+            assertEquals(a.getCredited(), b.getCredited());
+            assertEquals(a.getCharged(), b.getCharged());
+            assertEquals(before + a.getInterestCents() - a.getFeeCents(), single.totalBalanceCents());
+            for (int id = 0; id < count; id++) {
+                assertEquals(single.getBalanceCents(id), parallel.getBalanceCents(id));
+            }
+            assertTrue(a.getAccountsPerSecond() > 0);
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("End of day: one journal summary per chunk, skipped by recovery")
+    public void journalsOneRecordPerChunk() throws Exception {
+        AccountStore store = population(10_000);
+        Path file = dir.resolve("journal.dat");
+        EndOfDayBatch.Report report;
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            journal.attach(new Account(1L, 100, Status.VERIFIED, 700));
+            report = new EndOfDayBatch(3, 250, 4096, ForkJoinPool.commonPool()).run(store, journal);
+        }
+
+        int chunks = 0;
+        int accounts = 0;
+        long interest = 0;
+        long fees = 0;
+        try (JournalReader reader = new JournalReader(file)) {
+            JournalRecord record = new JournalRecord();
+            while (reader.next(record)) {
+                if (record.getType() != JournalRecordType.END_OF_DAY) continue;
+                assertEquals(JournalRecord.NO_ACCOUNT, record.getAccountId());
+                assertNull(record.getStatus());
+                assertEquals(0, record.getFirstStoreId() % 4096);
+                chunks++;
+                accounts += record.getStoreAccounts();
+                interest += record.getInterestCents();
+                fees += record.getFeeCents();
+            }
+        }
+        assertEquals(3, chunks);
+        assertEquals(10_000, accounts);
+        assertEquals(report.getInterestCents(), interest);
+        assertEquals(report.getFeeCents(), fees);
+
+        JournalRecovery.Result recovered = new JournalRecovery().recover(file, null);
+        assertEquals(1, recovered.getAccounts().size());
+    }
+}
@@ -0,0 +1,249 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// FraudPipeline.java
+// Scores completed transfers for fraud risk on its own thread, off the transfer path.
+//
+// TransactionProcessor offers each successful transfer into a bounded MpscRingBuffer. The offer is
+// one CAS and never blocks: when the ring is full the event is dropped and counted, so a slow
+// scorer can never slow transfers down. The scoring thread is the only one that touches the
+// per-account profiles, so they are plain fields with no locks. At most maxProfiles profiles are
+// kept; past that the least recently scored account's profile is dropped and it starts again with
+// no history.
+//
+// Features, updated incrementally per transfer:
+//   amount z-score   - against an exponentially weighted mean and variance of the source's transfers
+//   new counterparty - the target is not among the source's last RECENT targets
+//   fan-out          - distinct targets among the source's last RECENT transfers
+//   fan-in           - distinct sources among the target's last RECENT incoming transfers
+// They are combined into a score in [0, 1]. A transfer at or over the risk threshold is passed to
+// the Alert listener (FLAG) and, with HOLD, the source is also put on hold through violation(),
+// which suspends a VERIFIED account's withdrawals until an appeal.
+public class FraudPipeline implements AutoCloseable {
+
+    public enum Action { FLAG, HOLD }
+
+    // Receives every transfer that scored at or over the threshold, on the scoring thread
+    public interface Alert {
+        void onAlert(Account source, Account target, long amountCents, double score);
+    }
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final double DEFAULT_THRESHOLD = 0.6;
+    public static final int DEFAULT_MAX_PROFILES = 1 << 20;
+
+    static final int RECENT = 16;
+    // transfers a source needs before its amount z-score counts
+    static final int MIN_HISTORY = 5;
+    private static final double ALPHA = 0.1;
+    // a z-score this high gives the full amount weight
+    private static final double Z_CAP = 4;
+    // keeps a source that always sends the same amount from scoring any change as infinite
+    private static final double MIN_RELATIVE_SPREAD = 0.05;
+
+    private static final double AMOUNT_WEIGHT = 0.5;
+    private static final double NEW_COUNTERPARTY_WEIGHT = 0.2;
+    private static final double FAN_OUT_WEIGHT = 0.2;
+    private static final double FAN_IN_WEIGHT = 0.1;
+
+    private static final int SPINS_BEFORE_PARK = 200;
+    private static final long PARK_NANOS = 50_000;
+
+    private final MpscRingBuffer<Event> ring;
+    private final double threshold;
+    private final Action action;
+    private final Alert alert;
+    private final Thread thread;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    // owned by the scoring thread, least recently scored first
+    private final Map<Long, Profile> profiles;
+    private volatile long scored;
+    private volatile long alerts;
+
+    public FraudPipeline(Action action, Alert alert) {
+        this(DEFAULT_CAPACITY, DEFAULT_THRESHOLD, action, alert);
+    }
+
+    public FraudPipeline(int capacity, double threshold, Action action, Alert alert) {
+        this(capacity, threshold, DEFAULT_MAX_PROFILES, action, alert);
+    }
+
+    public FraudPipeline(int capacity, double threshold, int maxProfiles, Action action, Alert alert) {
+        if (maxProfiles < 2) throw new IllegalArgumentException("maxProfiles must be at least 2");
+        this.ring = new MpscRingBuffer<>(capacity);
+        this.profiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Profile> eldest) {
+                return size() > maxProfiles;
+            }
+        };
+        this.threshold = threshold;
+        this.action = action;
+        this.alert = alert;
+        this.thread = new Thread(this::run, "fraud-pipeline");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Queues a completed transfer for scoring; returns false, dropping it, if the queue is full
+    public boolean offer(Account source, Account target, long amountCents) {
+        if (!running || !ring.offer(new Event(source, target, amountCents))) {
+            dropped.increment();
+            return false;
+        }
+        if (parked) LockSupport.unpark(thread);
+        return true;
+    }
+
+    public long getScored() {
+        return scored;
+    }
+
+    public long getAlerts() {
+        return alerts;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // Profiles kept; read it after close(), as the scoring thread owns them until then
+    int profileCount() {
+        return profiles.size();
+    }
+
+    // Transfers waiting to be scored (approximate)
+    public int getQueued() {
+        return ring.size();
+    }
+
+    // Stops taking transfers, scores the ones already queued and stops the thread
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        int idle = 0;
+        while (true) {
+            int work = ring.drain(this::score, 256);
+            if (work > 0) {
+                idle = 0;
+            } else if (!running) {
+                return;
+            } else if (++idle < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                parked = true;
+                if (ring.size() == 0) LockSupport.parkNanos(PARK_NANOS);
+                parked = false;
+            }
+        }
+    }
+
+    private void score(Event event) {
+        Profile source = profiles.computeIfAbsent(event.source.getId(), id -> new Profile());
+        Profile target = profiles.computeIfAbsent(event.target.getId(), id -> new Profile());
+        long targetId = event.target.getId();
+        double amount = event.amountCents;
+
+        double risk = riskScore(source, target, targetId, amount);
+        source.recordOutgoing(targetId, amount);
+        target.recordIncoming(event.source.getId());
+
+        if (risk >= threshold) {
+            alerts++;
+            if (alert != null) alert.onAlert(event.source, event.target, event.amountCents, risk);
+            if (action == Action.HOLD) event.source.violation();
+        }
+        // counted last, so a caller that sees the count also sees the alert and the hold
+        scored++;
+    }
+
+    // The score of the transfer against the profiles as they were before it
+    static double riskScore(Profile source, Profile target, long targetId, double amount) {
+        double z = 0;
+        if (source.transfersOut >= MIN_HISTORY) {
+            double spread = Math.max(Math.sqrt(source.variance), 1 + source.mean * MIN_RELATIVE_SPREAD);
+            z = (amount - source.mean) / spread;
+        }
+        boolean newCounterparty = !contains(source.recentTargets, source.targetCount, targetId);
+        int fanOut = distinct(source.recentTargets, source.targetCount) + (newCounterparty ? 1 : 0);
+
+        return AMOUNT_WEIGHT * Math.min(Math.max(z, 0) / Z_CAP, 1)
+                + NEW_COUNTERPARTY_WEIGHT * (newCounterparty ? 1 : 0)
+                + FAN_OUT_WEIGHT * Math.min(fanOut, RECENT) / RECENT
+                + FAN_IN_WEIGHT * (double) distinct(target.recentSources, target.sourceCount) / RECENT;
+    }
+
+    private static boolean contains(long[] ring, long count, long id) {
+        for (int i = 0, n = (int) Math.min(count, RECENT); i < n; i++) {
+            if (ring[i] == id) return true;
+        }
+        return false;
+    }
+
+    // distinct ids among the filled slots; RECENT is small, so a quadratic scan beats a set
+    private static int distinct(long[] ring, long count) {
+        int n = (int) Math.min(count, RECENT);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            int j = 0;
+            while (j < i && ring[j] != ring[i]) j++;
+            if (j == i) distinct++;
+        }
+        return distinct;
+    }
+
+    // Rolling features of one account, updated in place by the scoring thread
+    static final class Profile {
+        long transfersOut;
+        double mean;
+        double variance;
+        final long[] recentTargets = new long[RECENT];
+        long targetCount;
+        final long[] recentSources = new long[RECENT];
+        long sourceCount;
+
+        void recordOutgoing(long targetId, double amount) {
+            if (transfersOut == 0) {
+                mean = amount;
+            } else {
+                // exponentially weighted mean and variance, one step
+                double diff = amount - mean;
+                double increment = ALPHA * diff;
+                mean += increment;
+                variance = (1 - ALPHA) * (variance + diff * increment);
+            }
+            transfersOut++;
+            recentTargets[(int) (targetCount++ % RECENT)] = targetId;
+        }
+
+        void recordIncoming(long sourceId) {
+            recentSources[(int) (sourceCount++ % RECENT)] = sourceId;
+        }
+    }
+
+    private static final class Event {
+        final Account source;
+        final Account target;
+        final long amountCents;
+
+        Event(Account source, Account target, long amountCents) {
+            this.source = source;
+            this.target = target;
+            this.amountCents = amountCents;
+        }
+    }
+}
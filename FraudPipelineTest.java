@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FraudPipelineTest {
+
+    private static void awaitScored(FraudPipeline pipeline, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pipeline.getScored() < count) {
+            assertTrue(System.nanoTime() < deadline, "scoring did not catch up");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Fraud: a spike to a new counterparty is flagged and the source held")
+    public void spikeIsHeld() throws Exception {
+        List<String> alerts = new ArrayList<>();
+        Account source = new Account(1L, 100_000, Status.VERIFIED, 700);
+        Account usual = new Account(2L, 0, Status.VERIFIED, 700);
+        Account stranger = new Account(3L, 0, Status.VERIFIED, 700);
+        TransactionProcessor processor = new TransactionProcessor();
+
+        try (FraudPipeline pipeline = new FraudPipeline(FraudPipeline.Action.HOLD,
+                (from, to, cents, score) -> alerts.add(to.getId() + ":" + cents))) {
+            processor.setFraudPipeline(pipeline);
+            for (int i = 0; i < 20; i++) {
+                assertTrue(processor.processTransferCents(source, usual, 10_000 + i * 100));
+            }
+            awaitScored(pipeline, 20);
+            assertEquals(0, pipeline.getAlerts(), "A steady pattern must not alert");
+
+            assertTrue(processor.processTransferCents(source, stranger, 5_000_000),
+                    "Scoring runs after the transfer, never inside it");
+            awaitScored(pipeline, 21);
+            assertEquals(List.of("3:5000000"), alerts);
+            assertEquals(Status.SUSPENDED, source.getStatus());
+            assertFalse(processor.processTransferCents(source, usual, 100));
+            assertEquals(21, pipeline.getScored(), "Refused transfers are not scored");
+        }
+    }
+
+    @Test
+    @DisplayName("Fraud: a full queue drops events instead of slowing transfers")
+    public void fullQueueDrops() throws Exception {
+        CountDownLatch scorerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Account source = new Account(1L, 100_000, Status.VERIFIED, 700);
+        Account target = new Account(2L, 0, Status.VERIFIED, 700);
+        TransactionProcessor processor = new TransactionProcessor();
+
+        // threshold 0 alerts on everything, so the first event parks the scorer in the listener
+        try (FraudPipeline pipeline = new FraudPipeline(4, 0, FraudPipeline.Action.FLAG, (from, to, cents, score) -> {
+            scorerBlocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            processor.setFraudPipeline(pipeline);
+            assertTrue(processor.processTransferCents(source, target, 1));
+            assertTrue(scorerBlocked.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 10; i++) {
+                assertTrue(processor.processTransferCents(source, target, 1));
+            }
+            assertEquals(6, pipeline.getDropped());
+            assertEquals(4, pipeline.getQueued());
+            release.countDown();
+            awaitScored(pipeline, 5);
+        }
+        assertEquals(11, target.getBalanceCents(), "Every transfer went through");
+    }
+
+    @Test
+    @DisplayName("Fraud: applied batch rows are scored and profiles stay within their cap")
+    public void batchRowsAndProfileCap() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            accounts.add(new Account(id, 1_000, Status.VERIFIED, 700));
+        }
+        List<TransferInstruction> rows = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            rows.add(new TransferInstruction(accounts.get(i), accounts.get(i + 1), 1.00));
+        }
+        // refused rows are not scored
+        rows.add(new TransferInstruction(accounts.get(0), accounts.get(1), 1_000_000.00));
+        TransactionProcessor processor = new TransactionProcessor();
+
+        FraudPipeline pipeline = new FraudPipeline(64, 2, 4, FraudPipeline.Action.FLAG, null);
+        try (pipeline) {
+            processor.setFraudPipeline(pipeline);
+            boolean[] results = processor.processBatch(rows);
+            assertFalse(results[9]);
+            awaitScored(pipeline, 9);
+        }
+        assertEquals(9, pipeline.getScored());
+        assertEquals(4, pipeline.profileCount());
+    }
+
+    @Test
+    @DisplayName("Fraud: counterparty and fan-out features build up per account")
+    public void features() {
+        FraudPipeline.Profile source = new FraudPipeline.Profile();
+        FraudPipeline.Profile target = new FraudPipeline.Profile();
+
+        double first = FraudPipeline.riskScore(source, target, 7L, 1_000);
+        assertEquals(0.2 + 0.2 / FraudPipeline.RECENT, first, 1e-9, "Only the new-counterparty and fan-out terms");
+        source.recordOutgoing(7L, 1_000);
+        assertEquals(0.2 / FraudPipeline.RECENT, FraudPipeline.riskScore(source, target, 7L, 1_000), 1e-9);
+
+        for (long id = 100; id < 100 + FraudPipeline.RECENT; id++) {
+            source.recordOutgoing(id, 1_000);
+            target.recordIncoming(id);
+        }
+        // every recent target is different, and so is every source paying the target
+        assertEquals(0.2 + 0.2 + 0.1, FraudPipeline.riskScore(source, target, 9L, 1_000), 1e-9);
+        assertTrue(FraudPipeline.riskScore(source, target, 9L, 1_000_000) > 0.9);
+    }
+}
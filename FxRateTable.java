@@ -0,0 +1,176 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// FxRateTable.java
+// Exchange rates for cross-currency transfers, loaded from a local file of "CODE,rate" lines where
+// rate is the value of one unit of CODE in a common base currency ('#' starts a comment):
+//
+//   USD,1
+//   EUR,1.0842
+//
+// The rates live in an immutable Snapshot that holds every pair rate precomputed as a scaled long,
+// so a conversion is one map lookup per currency and a multiply, with no locks and no BigDecimal on
+// the common path. reload() parses the file into a new Snapshot and publishes it with one volatile
+// write: transfers already holding the old snapshot finish with it, later ones see the new one,
+// and neither side ever waits for the other.
+public final class FxRateTable {
+
+    // pair rates are stored as rate * RATE_SCALE
+    public static final long RATE_SCALE = 100_000_000L;
+    // returned by convert when there is no rate between the two currencies
+    public static final long NO_RATE = -1;
+
+    private final Path file;
+    private volatile Snapshot current;
+
+    public FxRateTable(Path file) throws IOException {
+        this.file = file;
+        this.current = Snapshot.parse(file);
+    }
+
+    // A fixed table with no file behind it; reload() is not available
+    public FxRateTable(Snapshot rates) {
+        this.file = null;
+        this.current = rates;
+    }
+
+    public Snapshot current() {
+        return current;
+    }
+
+    // Reads the file again and swaps the new rates in; on a bad file the current rates stay
+    public Snapshot reload() throws IOException {
+        if (file == null) throw new IllegalStateException("rate table has no file to reload");
+        Snapshot next = Snapshot.parse(file);
+        current = next;
+        return next;
+    }
+
+    public void set(Snapshot rates) {
+        current = rates;
+    }
+
+    // Reloads the file at a fixed period, like JournalRecovery.scheduleSnapshots
+    public ScheduledFuture<?> scheduleReloads(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+        return scheduler.scheduleAtFixedRate(() -> {
+            try {
+                reload();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, period, period, unit);
+    }
+
+    // One immutable set of rates
+    public static final class Snapshot {
+
+        private final Map<Currency, Integer> index;
+        // pairRates[from * n + to] = units of `to` per unit of `from`, times RATE_SCALE
+        private final long[] pairRates;
+        private final int n;
+
+        private Snapshot(Map<Currency, BigDecimal> toBase) {
+            n = toBase.size();
+            Map<Currency, Integer> positions = new HashMap<>(n * 2);
+            BigDecimal[] rates = new BigDecimal[n];
+            for (Map.Entry<Currency, BigDecimal> entry : toBase.entrySet()) {
+                rates[positions.size()] = entry.getValue();
+                positions.put(entry.getKey(), positions.size());
+            }
+            index = Collections.unmodifiableMap(positions);
+            pairRates = new long[n * n];
+            BigDecimal scale = BigDecimal.valueOf(RATE_SCALE);
+            for (int from = 0; from < n; from++) {
+                for (int to = 0; to < n; to++) {
+                    pairRates[from * n + to] = from == to ? RATE_SCALE
+                            : rates[from].multiply(scale).divide(rates[to], 0, RoundingMode.DOWN).longValueExact();
+                }
+            }
+        }
+
+        // Builds a snapshot from base rates, e.g. Map.of(USD, new BigDecimal("1"), EUR, new BigDecimal("1.0842"))
+        public static Snapshot of(Map<Currency, BigDecimal> toBase) {
+            for (Map.Entry<Currency, BigDecimal> entry : toBase.entrySet()) {
+                if (entry.getValue().signum() <= 0) {
+                    throw new IllegalArgumentException("rate for " + entry.getKey() + " must be positive");
+                }
+            }
+            return new Snapshot(toBase);
+        }
+
+        public static Snapshot parse(Path file) throws IOException {
+            Map<Currency, BigDecimal> toBase = new HashMap<>();
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+                String line;
+                int number = 0;
+                while ((line = in.readLine()) != null) {
+                    number++;
+                    int comment = line.indexOf('#');
+                    if (comment >= 0) line = line.substring(0, comment);
+                    line = line.trim();
+                    if (line.isEmpty()) continue;
+
+                    int comma = line.indexOf(',');
+                    try {
+                        if (comma < 0) throw new IllegalArgumentException("expected CODE,rate");
+                        Currency currency = Currency.getInstance(line.substring(0, comma).trim());
+                        BigDecimal rate = new BigDecimal(line.substring(comma + 1).trim());
+                        if (rate.signum() <= 0) throw new IllegalArgumentException("rate must be positive");
+                        if (toBase.put(currency, rate) != null) throw new IllegalArgumentException("duplicate " + currency);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(file + " line " + number + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+            return new Snapshot(toBase);
+        }
+
+        public boolean supports(Currency currency) {
+            return index.containsKey(currency);
+        }
+
+        // Units of `to` per unit of `from`, or NaN if either is missing
+        public double rate(Currency from, Currency to) {
+            Integer f = index.get(from);
+            Integer t = index.get(to);
+            if (f == null || t == null) return Double.NaN;
+            return pairRates[f * n + t] / (double) RATE_SCALE;
+        }
+
+        /**
+         * Converts a non-negative amount in hundredths of `from` to hundredths of `to`, rounding down
+         * so a conversion never creates money. Returns NO_RATE if either currency is missing and
+         * throws ArithmeticException if the result does not fit in a long.
+         */
+        public long convert(long cents, Currency from, Currency to) {
+            if (from == to) return cents;
+            Integer f = index.get(from);
+            Integer t = index.get(to);
+            if (f == null || t == null) return NO_RATE;
+            if (cents < 0) throw new IllegalArgumentException("amount must not be negative: " + cents);
+
+            long rate = pairRates[f * n + t];
+            if (Math.multiplyHigh(cents, rate) == 0) {
+                long product = cents * rate;
+                if (product >= 0) return product / RATE_SCALE;
+            }
+            // the product needs more than 63 bits
+            return BigInteger.valueOf(cents).multiply(BigInteger.valueOf(rate))
+                    .divide(BigInteger.valueOf(RATE_SCALE)).longValueExact();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FxRateTableTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency GBP = Currency.getInstance("GBP");
+    private static final Currency CHF = Currency.getInstance("CHF");
+
+    @TempDir
+    Path dir;
+
+    private Path rates(String text) throws IOException {
+        Path file = dir.resolve("rates.csv");
+        Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @Test
+    @DisplayName("FX: the rate file gives cross rates that round down")
+    public void parsesAndConverts() throws Exception {
+        FxRateTable table = new FxRateTable(rates("# base USD\nUSD,1\nEUR, 1.25 \n\nGBP,1.5 # sterling\n"));
+        FxRateTable.Snapshot rates = table.current();
+
+        assertEquals(12_500, rates.convert(10_000, EUR, USD));
+        assertEquals(8_000, rates.convert(10_000, USD, EUR));
+        assertEquals(12_000, rates.convert(10_000, GBP, EUR));
+        assertEquals(66, rates.convert(100, USD, GBP), "66.67 rounds down");
+        assertEquals(1.2, rates.rate(GBP, EUR), 1e-9);
+        assertEquals(FxRateTable.NO_RATE, rates.convert(100, USD, CHF));
+        assertTrue(Double.isNaN(rates.rate(CHF, USD)));
+        assertEquals(73_786_976_294_838_206L, rates.convert(Long.MAX_VALUE / 100, USD, EUR),
+                "Amounts whose product overflows a long take the exact path");
+        assertThrows(ArithmeticException.class, () -> rates.convert(Long.MAX_VALUE, EUR, USD));
+    }
+
+    @Test
+    @DisplayName("FX: a bad file is reported with its line and keeps the old rates")
+    public void badFileKeepsRates() throws Exception {
+        FxRateTable table = new FxRateTable(rates("USD,1\nEUR,1.25\n"));
+        FxRateTable.Snapshot before = table.current();
+
+        for (String bad : List.of("USD,1\nXYZ1,2\n", "USD,1\nEUR\n", "USD,1\nEUR,-1\n", "USD,1\nUSD,2\n", "USD,abc\n")) {
+            rates(bad);
+            IOException e = assertThrows(IOException.class, table::reload, bad);
+            assertTrue(e.getMessage().contains("line "), e.getMessage());
+            assertSame(before, table.current());
+        }
+    }
+
+    @Test
+    @DisplayName("FX: a cross-currency transfer debits one currency and credits the other")
+    public void crossCurrencyTransfer() {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account dollars = Account.ofCents(1L, 100_000, Status.VERIFIED, 700, USD);
+        Account euros = Account.ofCents(2L, 0, Status.VERIFIED, 700, EUR);
+        Account closedEuros = Account.ofCents(3L, 0, Status.CLOSED, 700, EUR);
+
+        assertEquals(OperationResult.NO_EXCHANGE_RATE, processor.tryTransferCents(dollars, euros, 10_000));
+        processor.setFxRates(new FxRateTable(FxRateTable.Snapshot.of(Map.of(USD, BigDecimal.ONE, EUR, new BigDecimal("1.25")))));
+
+        assertEquals(OperationResult.OK, processor.tryTransferCents(dollars, euros, 10_000));
+        assertEquals(90_000, dollars.getBalanceCents());
+        assertEquals(8_000, euros.getBalanceCents());
+        assertEquals(OperationResult.OK, processor.tryTransferCents(euros, dollars, 8_000));
+        assertEquals(100_000, dollars.getBalanceCents());
+
+        assertEquals(OperationResult.CLOSED, processor.tryTransferCents(dollars, closedEuros, 10_000));
+        assertEquals(100_000, dollars.getBalanceCents(), "The refund is in the source's own currency");
+        assertEquals(OperationResult.NO_EXCHANGE_RATE,
+                processor.tryTransferCents(dollars, Account.ofCents(4L, 0, Status.VERIFIED, 700, CHF), 100));
+        assertArrayEquals(new boolean[] {false}, processor.processBatch(List.of(new TransferInstruction(dollars, euros, 1))));
+    }
+
+    @Test
+    @DisplayName("Stress: swapping rates never blocks or tears a running transfer")
+    public void swapWhileTransferring() throws Exception {
+        FxRateTable.Snapshot even = FxRateTable.Snapshot.of(Map.of(USD, BigDecimal.ONE, EUR, BigDecimal.ONE));
+        FxRateTable.Snapshot half = FxRateTable.Snapshot.of(Map.of(USD, BigDecimal.ONE, EUR, new BigDecimal("2")));
+        FxRateTable table = new FxRateTable(even);
+        TransactionProcessor processor = new TransactionProcessor();
+        processor.setFxRates(table);
+        Account dollars = Account.ofCents(1L, 10_000_000, Status.VERIFIED, 700, USD);
+        Account euros = Account.ofCents(2L, 0, Status.VERIFIED, 700, EUR);
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> swapper = pool.submit(() -> {
+                int swaps = 0;
+                while (!done.get()) {
+                    table.set(swaps++ % 2 == 0 ? half : even);
+                }
+                return swaps;
+            });
+            Future<?> transfers = pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    assertEquals(OperationResult.OK, processor.tryTransferCents(dollars, euros, 100));
+                }
+            });
+            transfers.get();
+            done.set(true);
+            assertTrue(swapper.get() > 0);
+        } finally {
+            pool.shutdown();
+        }
+        // every transfer credited 100 or 50 euro cents, never anything in between
+        long credited = euros.getBalanceCents();
+        assertEquals(8_000_000, dollars.getBalanceCents());
+        assertEquals(0, credited % 50);
+        assertTrue(credited >= 1_000_000 && credited <= 2_000_000, "credited " + credited);
+    }
+}
@@ -0,0 +1,230 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// IdempotencyCache.java
+// Remembers the outcome of recent operations by idempotency key, so a client retry gets the original
+// result instead of running the operation again. Keys expire after a time-to-live and the cache holds
+// at most maxSize of them, oldest evicted first. An operation that is still running is never expired
+// or evicted, so its key cannot be reused to run it a second time.
+//
+// A key may carry a fingerprint of the request it was first used with; reusing the key for a
+// different request is refused with a KeyConflictException rather than answered with the first
+// request's result.
+//
+// The keys are spread over independently locked stripes, each an insertion-ordered map, so
+// concurrent requests rarely share a lock and expiry only ever looks at the oldest entries.
+public class IdempotencyCache<V> {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final List<Stripe<V>> stripes;
+    private final int mask;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    public IdempotencyCache(int maxSize, long ttl, TimeUnit unit) {
+        this(maxSize, ttl, unit, DEFAULT_STRIPES, System::nanoTime);
+    }
+
+    IdempotencyCache(int maxSize, long ttl, TimeUnit unit, int stripeCount, LongSupplier clock) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        if (Integer.bitCount(stripeCount) != 1) throw new IllegalArgumentException("stripeCount must be a power of two");
+        // never more stripes than entries, so every stripe can hold at least one key
+        int count = Math.min(stripeCount, Integer.highestOneBit(maxSize));
+        int perStripe = maxSize / count;
+        this.stripes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            stripes.add(new Stripe<>(perStripe));
+        }
+        this.mask = count - 1;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the remembered result for the key, or runs the operation and remembers its result.
+     * A retry that arrives while the first attempt is still running waits for that attempt
+     * rather than starting a second one. If the operation throws, nothing is remembered.
+     */
+    public V computeIfAbsent(String key, Supplier<V> operation) {
+        return computeIfAbsent(key, null, operation);
+    }
+
+    /**
+     * Like computeIfAbsent(key, operation), for a key that belongs to one request: fingerprint
+     * describes the request (it needs equals) and is remembered with the key. A later call with the
+     * same key and a different fingerprint throws KeyConflictException without running anything;
+     * anything the operation itself throws reaches the caller unchanged.
+     */
+    public V computeIfAbsent(String key, Object fingerprint, Supplier<V> operation) {
+        Stripe<V> stripe = stripeFor(key);
+        while (true) {
+            long now = clock.getAsLong();
+            CompletableFuture<V> existing;
+            CompletableFuture<V> pending = null;
+            Entry<V> added = null;
+
+            stripe.lock.lock();
+            try {
+                stripe.expire(now - ttlNanos);
+                Entry<V> entry = stripe.entries.get(key);
+                if (entry != null) {
+                    if (!Objects.equals(entry.fingerprint, fingerprint)) {
+                        throw new KeyConflictException(key);
+                    }
+                    stripe.hits++;
+                    existing = entry.result;
+                } else {
+                    existing = null;
+                    pending = new CompletableFuture<>();
+                    entry = new Entry<>(pending, fingerprint, now);
+                    stripe.entries.put(key, entry);
+                    added = entry;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            if (existing != null) {
+                // the first attempt may still be running; wait for it outside the lock
+                try {
+                    return existing.join();
+                } catch (CompletionException e) {
+                    // the first attempt failed and its key was removed; try again ourselves
+                    continue;
+                }
+            }
+            return run(stripe, key, added, operation);
+        }
+    }
+
+    // Thrown when a key comes back with a different request than the one it was first used for
+    public static final class KeyConflictException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        KeyConflictException(String key) {
+            super("idempotency key " + key + " was used for a different request");
+        }
+    }
+
+    private V run(Stripe<V> stripe, String key, Entry<V> entry, Supplier<V> operation) {
+        V value;
+        try {
+            value = operation.get();
+        } catch (RuntimeException | Error e) {
+            stripe.lock.lock();
+            try {
+                // only our own entry: the key may already belong to a newer attempt
+                stripe.entries.remove(key, entry);
+            } finally {
+                stripe.lock.unlock();
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.result.complete(value);
+        return value;
+    }
+
+    // The remembered result, or null if the key is unknown, expired or still running
+    public V getIfPresent(String key) {
+        Stripe<V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.expire(clock.getAsLong() - ttlNanos);
+            Entry<V> entry = stripe.entries.get(key);
+            return entry != null && entry.result.isDone() && !entry.result.isCompletedExceptionally()
+                    ? entry.result.join() : null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    // Requests answered from the cache
+    public long getHits() {
+        long hits = 0;
+        for (Stripe<V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                hits += stripe.hits;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return hits;
+    }
+
+    private Stripe<V> stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes.get((h ^ (h >>> 16)) & mask);
+    }
+
+    private static final class Entry<V> {
+        final CompletableFuture<V> result;
+        final Object fingerprint;
+        final long createdNanos;
+
+        Entry(CompletableFuture<V> result, Object fingerprint, long createdNanos) {
+            this.result = result;
+            this.fingerprint = fingerprint;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    private static final class Stripe<V> {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Entry<V>> entries;
+        long hits;
+
+        Stripe(int capacity) {
+            entries = new LinkedHashMap<>(Math.min(capacity, 1024) * 4 / 3 + 1) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                    if (size() <= capacity) return false;
+                    // evict the oldest finished entries; running ones stay even if that leaves the
+                    // stripe over capacity for a while
+                    Iterator<Entry<V>> it = values().iterator();
+                    while (size() > capacity && it.hasNext()) {
+                        if (it.next().result.isDone()) it.remove();
+                    }
+                    return false;
+                }
+            };
+        }
+
+        // insertion order is creation order, so expired entries are all at the head, apart from
+        // running ones, which are skipped until they finish
+        void expire(long oldestAllowed) {
+            Iterator<Entry<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry<V> entry = it.next();
+                if (entry.createdNanos - oldestAllowed >= 0) return;
+                if (entry.result.isDone()) it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyCacheTest {
+
+    @Test
+    @DisplayName("Idempotency: a retried transfer key moves the money once")
+    public void retriedTransferMovesMoneyOnce() {
+        ClientController controller = new ClientController();
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+
+        assertEquals("Transfer successful", controller.handleTransfer("req-1", source, target, "30"));
+        assertEquals("Transfer successful", controller.handleTransfer("req-1", source, target, "30"));
+        assertEquals(70, source.getBalance(), 0.001);
+        assertEquals(30, target.getBalance(), 0.001);
+
+        assertEquals("Transfer successful", controller.handleTransfer("req-2", source, target, "30"));
+        assertEquals(40, source.getBalance(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Idempotency: a retry gets the original failure even after the cause is gone")
+    public void retryReturnsOriginalFailure() {
+        ClientController controller = new ClientController();
+        Account source = new Account(10, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+
+        assertEquals(ControllerResult.TRANSFER_FAILED, controller.transfer("req-1", source, target, "50"));
+        source.deposit(100);
+        assertEquals(ControllerResult.TRANSFER_FAILED, controller.transfer("req-1", source, target, "50"));
+        assertEquals(110, source.getBalance(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Idempotency: keys expire after the time-to-live")
+    public void keysExpire() {
+        AtomicLong now = new AtomicLong();
+        IdempotencyCache<String> cache = new IdempotencyCache<>(100, 10, TimeUnit.SECONDS, 4, now::get);
+        AtomicInteger runs = new AtomicInteger();
+
+        cache.computeIfAbsent("k", () -> "run " + runs.incrementAndGet());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals("run 1", cache.computeIfAbsent("k", () -> "run " + runs.incrementAndGet()));
+        assertEquals(1, cache.getHits());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertNull(cache.getIfPresent("k"));
+        assertEquals("run 2", cache.computeIfAbsent("k", () -> "run " + runs.incrementAndGet()));
+    }
+
+    @Test
+    @DisplayName("Idempotency: the oldest keys are evicted once the cache is full")
+    public void sizeEviction() {
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>(8, 1, TimeUnit.HOURS, 1, System::nanoTime);
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            cache.computeIfAbsent("key-" + i, () -> value);
+        }
+
+        assertEquals(8, cache.size());
+        assertNull(cache.getIfPresent("key-0"));
+        assertEquals(19, cache.getIfPresent("key-19"));
+    }
+
+    @Test
+    @DisplayName("Idempotency: a failed attempt is not remembered")
+    public void failedAttemptIsNotRemembered() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(10, 1, TimeUnit.HOURS);
+
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent("k", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", cache.computeIfAbsent("k", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("Idempotency: a key reused for a different transfer is refused")
+    public void keyReuseIsRefused() {
+        ClientController controller = new ClientController();
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+        Account other = new Account(0, Status.VERIFIED);
+
+        assertEquals(OperationResult.OK, controller.tryTransfer("req-1", source, target, "30"));
+        assertEquals(OperationResult.IDEMPOTENCY_CONFLICT, controller.tryTransfer("req-1", source, target, "31"));
+        assertEquals(OperationResult.IDEMPOTENCY_CONFLICT, controller.tryTransfer("req-1", source, other, "30"));
+        assertEquals(OperationResult.OK, controller.tryTransfer("req-1", source, target, "30.00"));
+        assertEquals(70, source.getBalance(), 0.001);
+        assertEquals(0, other.getBalance(), 0.001);
+
+        IdempotencyCache<String> cache = new IdempotencyCache<>(10, 1, TimeUnit.HOURS);
+        cache.computeIfAbsent("k", "a", () -> "first");
+        assertThrows(IdempotencyCache.KeyConflictException.class, () -> cache.computeIfAbsent("k", "b", () -> "second"));
+        assertEquals("first", cache.computeIfAbsent("k", "a", () -> "second"));
+
+        // the operation's own exceptions are not conflicts, and the key stays free
+        IllegalArgumentException failed = assertThrows(IllegalArgumentException.class,
+                () -> cache.computeIfAbsent("j", "a", () -> { throw new IllegalArgumentException("boom"); }));
+        assertFalse(failed instanceof IdempotencyCache.KeyConflictException);
+        assertEquals("retried", cache.computeIfAbsent("j", "a", () -> "retried"));
+    }
+
+    @Test
+    @DisplayName("Idempotency: bad input is not remembered under the key")
+    public void invalidInputIsNotRemembered() {
+        ClientController controller = new ClientController();
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+
+        assertEquals(OperationResult.INVALID_AMOUNT, controller.tryTransfer("req-1", source, target, "3O"));
+        assertEquals(OperationResult.NON_POSITIVE, controller.tryTransfer("req-1", source, target, "0"));
+        assertEquals(OperationResult.OK, controller.tryTransfer("req-1", source, target, "30"));
+        assertEquals(30, target.getBalance(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Idempotency: a running operation is neither evicted nor expired")
+    public void runningEntriesStay() throws Exception {
+        AtomicLong now = new AtomicLong();
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>(2, 10, TimeUnit.SECONDS, 1, now::get);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = pool.submit(() -> cache.computeIfAbsent("slow", () -> {
+                started.countDown();
+                await(release);
+                return runs.incrementAndGet();
+            }));
+            started.await();
+
+            // fill the stripe past capacity and past the time-to-live while "slow" is running
+            for (int i = 0; i < 5; i++) {
+                int value = i;
+                cache.computeIfAbsent("key-" + i, () -> value);
+            }
+            now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+            assertNull(cache.getIfPresent("key-0"));
+
+            Future<Integer> retry = pool.submit(() -> cache.computeIfAbsent("slow", runs::incrementAndGet));
+            // the retry counts a hit once it has found the running entry and is waiting on it
+            while (cache.getHits() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, retry.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Stress: concurrent retries of one key run the operation once")
+    public void concurrentRetriesRunOnce() throws Exception {
+        IdempotencyCache<Integer> cache = new IdempotencyCache<>(1000, 1, TimeUnit.HOURS);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.computeIfAbsent("same", () -> {
+                        sleep(50);
+                        return runs.incrementAndGet();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
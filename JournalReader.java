@@ -0,0 +1,88 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// JournalReader.java
+// Sequential reader over a TransactionJournal file. It reads through one reusable buffer and fills a
+// caller-supplied JournalRecord, so memory use stays constant however long the journal is.
+// Reading stops at the first slot that is empty or fails its checksum.
+public class JournalReader implements Closeable {
+
+    private static final int RECORDS_PER_READ = 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORDS_PER_READ * JournalRecord.SIZE);
+    private final ByteBuffer single = ByteBuffer.allocate(JournalRecord.SIZE);
+    private long filePosition;
+    private boolean exhausted;
+
+    public JournalReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.limit(0);
+    }
+
+    // Moves to the given record index (0 is the first record in the file)
+    public void seek(long recordIndex) {
+        filePosition = recordIndex * JournalRecord.SIZE;
+        buffer.limit(0);
+        exhausted = false;
+    }
+
+    // Index of the record the next call to next() will return
+    public long position() {
+        return filePosition / JournalRecord.SIZE - buffer.remaining() / JournalRecord.SIZE;
+    }
+
+    public boolean next(JournalRecord into) throws IOException {
+        if (exhausted) return false;
+        if (buffer.remaining() < JournalRecord.SIZE && !fill()) {
+            exhausted = true;
+            return false;
+        }
+        int offset = buffer.position();
+        if (!into.read(buffer, offset)) {
+            exhausted = true;
+            return false;
+        }
+        buffer.position(offset + JournalRecord.SIZE);
+        return true;
+    }
+
+    // Random access read of one record; leaves the sequential position alone
+    public boolean readAt(long recordIndex, JournalRecord into) throws IOException {
+        single.clear();
+        long offset = recordIndex * JournalRecord.SIZE;
+        while (single.hasRemaining()) {
+            if (channel.read(single, offset + single.position()) < 0) return false;
+        }
+        return into.read(single, 0);
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        while (buffer.position() < JournalRecord.SIZE) {
+            int read = channel.read(buffer, filePosition);
+            if (read < 0) {
+                // a partial record at the end of the file does not count
+                filePosition -= buffer.position();
+                buffer.limit(0);
+                return false;
+            }
+            filePosition += read;
+        }
+        // only whole records are handed out; a partial tail is read again next time
+        int whole = buffer.position() - buffer.position() % JournalRecord.SIZE;
+        filePosition -= buffer.position() - whole;
+        buffer.position(whole);
+        buffer.flip();
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
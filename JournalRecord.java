@@ -0,0 +1,283 @@
+import java.nio.ByteBuffer;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+// JournalRecord.java
+// One fixed-width TransactionJournal record. Instances are mutable and meant to be reused while
+// reading, so a scan over millions of records does not allocate one object per record.
+//
+// Account records (every type but END_OF_DAY):
+//
+//   0 sequence   8 timestamp   16 account   24 counterparty   32 amount   40 credit score
+//   44 type   45 status   46 event   48 checksum   52 currency   54..63 reserved, zero
+//
+// The currency is the account's ISO 4217 numeric code; journals written before it was recorded
+// hold 0 there, which reads back as Account.DEFAULT_CURRENCY. Only currencies whose numeric code
+// names them alone can be journaled, see currencyCode.
+//
+// END_OF_DAY records summarise a chunk of AccountStore ids and belong to no account:
+//
+//   0 sequence   8 timestamp   16 NO_ACCOUNT   24 first store id   32 interest credited   40 accounts
+//   44 type   45 no status (-1)   46 no event (-1)   48 checksum   52 fees charged   60 zero
+//
+// and read back through their own accessors; the account fields of such a record read as
+// NO_ACCOUNT, 0 and a null status. The checksum covers bytes 52..63 only when they are not all
+// zero, so journals written before those bytes were used still read back.
+public final class JournalRecord {
+
+    public static final int SIZE = 64;
+    // the account id of records that belong to no account
+    public static final long NO_ACCOUNT = -1;
+
+    // field offsets inside a record
+    private static final int SEQUENCE = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int ACCOUNT = 16;
+    private static final int COUNTERPARTY = 24;
+    private static final int AMOUNT = 32;
+    private static final int CREDIT_SCORE = 40;
+    private static final int TYPE = 44;
+    private static final int STATUS = 45;
+    private static final int EVENT = 46;
+    private static final int CHECKSUM = 48;
+    private static final int TAIL = 52;
+    private static final int TAIL_INT = 60;
+    private static final int CURRENCY = TAIL;
+
+    // END_OF_DAY fields
+    private static final int FIRST_STORE_ID = COUNTERPARTY;
+    private static final int INTEREST = AMOUNT;
+    private static final int STORE_ACCOUNTS = CREDIT_SCORE;
+    private static final int FEES = TAIL;
+
+    private static final JournalRecordType[] TYPES = JournalRecordType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final StatusEvent[] EVENTS = StatusEvent.values();
+    // numeric code to currency, leaving out codes that several currencies share
+    private static final Map<Integer, Currency> CURRENCIES = new HashMap<>();
+
+    static {
+        Map<Integer, Integer> uses = new HashMap<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int code = currency.getNumericCode();
+            if (code > 0 && code <= Short.MAX_VALUE && uses.merge(code, 1, Integer::sum) == 1) {
+                CURRENCIES.put(code, currency);
+            } else {
+                CURRENCIES.remove(code);
+            }
+        }
+    }
+
+    private long sequence;
+    private long timestampMillis;
+    private long accountId;
+    private long counterpartyId;
+    private long amountCents;
+    private int creditScore;
+    private JournalRecordType type;
+    private Status status;
+    private StatusEvent event;
+    private Currency currency;
+    private int firstStoreId;
+    private int storeAccounts;
+    private long interestCents;
+    private long feeCents;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    // the other account of a TRANSFER, otherwise 0
+    public long getCounterpartyId() {
+        return counterpartyId;
+    }
+
+    // the amount moved, or the full balance for OPEN records
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    // the account's credit score after the change
+    public int getCreditScore() {
+        return creditScore;
+    }
+
+    public JournalRecordType getType() {
+        return type;
+    }
+
+    // the account's status after the change; null for END_OF_DAY
+    public Status getStatus() {
+        return status;
+    }
+
+    // set for STATUS records only
+    public StatusEvent getEvent() {
+        return event;
+    }
+
+    // the account's currency; null for END_OF_DAY
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    // END_OF_DAY only: the chunk is AccountStore ids [getFirstStoreId(), getFirstStoreId() + getStoreAccounts())
+    public int getFirstStoreId() {
+        return firstStoreId;
+    }
+
+    public int getStoreAccounts() {
+        return storeAccounts;
+    }
+
+    // END_OF_DAY only: interest credited to and fees charged from the chunk
+    public long getInterestCents() {
+        return interestCents;
+    }
+
+    public long getFeeCents() {
+        return feeCents;
+    }
+
+    // The code a record stores for the currency; throws IllegalArgumentException if no code names it alone
+    static int currencyCode(Currency currency) {
+        int code = currency.getNumericCode();
+        if (CURRENCIES.get(code) != currency) {
+            throw new IllegalArgumentException("currency " + currency + " has no ISO numeric code of its own");
+        }
+        return code;
+    }
+
+    // The currency of a stored code; 0, from journals written before currencies were, is the default one
+    static Currency currencyOf(int code) {
+        return code == 0 ? Account.DEFAULT_CURRENCY : CURRENCIES.get(code);
+    }
+
+    static void write(ByteBuffer buffer, int offset, long sequence, long timestampMillis, long accountId,
+                      long counterpartyId, long amountCents, int creditScore, JournalRecordType type,
+                      Status status, StatusEvent event, int currencyCode) {
+        byte eventCode = event == null ? -1 : (byte) event.ordinal();
+        buffer.putLong(offset + SEQUENCE, sequence);
+        buffer.putLong(offset + TIMESTAMP, timestampMillis);
+        buffer.putLong(offset + ACCOUNT, accountId);
+        buffer.putLong(offset + COUNTERPARTY, counterpartyId);
+        buffer.putLong(offset + AMOUNT, amountCents);
+        buffer.putInt(offset + CREDIT_SCORE, creditScore);
+        buffer.put(offset + TYPE, (byte) type.ordinal());
+        buffer.put(offset + STATUS, (byte) status.ordinal());
+        buffer.put(offset + EVENT, eventCode);
+        buffer.put(offset + EVENT + 1, (byte) 0);
+        buffer.putLong(offset + TAIL, 0);
+        buffer.putShort(offset + CURRENCY, (short) currencyCode);
+        buffer.putInt(offset + TAIL_INT, 0);
+        buffer.putInt(offset + CHECKSUM, checksum(sequence, timestampMillis, accountId, counterpartyId, amountCents,
+                creditScore, type.ordinal(), status.ordinal(), eventCode, buffer.getLong(offset + TAIL), 0));
+    }
+
+    static void writeEndOfDay(ByteBuffer buffer, int offset, long sequence, long timestampMillis, int firstStoreId,
+                              int storeAccounts, long interestCents, long feeCents) {
+        int type = JournalRecordType.END_OF_DAY.ordinal();
+        buffer.putLong(offset + SEQUENCE, sequence);
+        buffer.putLong(offset + TIMESTAMP, timestampMillis);
+        buffer.putLong(offset + ACCOUNT, NO_ACCOUNT);
+        buffer.putLong(offset + FIRST_STORE_ID, firstStoreId);
+        buffer.putLong(offset + INTEREST, interestCents);
+        buffer.putInt(offset + STORE_ACCOUNTS, storeAccounts);
+        buffer.put(offset + TYPE, (byte) type);
+        buffer.put(offset + STATUS, (byte) -1);
+        buffer.put(offset + EVENT, (byte) -1);
+        buffer.put(offset + EVENT + 1, (byte) 0);
+        buffer.putLong(offset + FEES, feeCents);
+        buffer.putInt(offset + TAIL_INT, 0);
+        buffer.putInt(offset + CHECKSUM, checksum(sequence, timestampMillis, NO_ACCOUNT, firstStoreId, interestCents,
+                storeAccounts, type, -1, -1, feeCents, 0));
+    }
+
+    // Fills this record from the buffer and returns false if the bytes are not a complete record
+    // (never written, or torn by a crash).
+    boolean read(ByteBuffer buffer, int offset) {
+        long seq = buffer.getLong(offset + SEQUENCE);
+        if (seq <= 0) return false;
+        long time = buffer.getLong(offset + TIMESTAMP);
+        long account = buffer.getLong(offset + ACCOUNT);
+        long counterparty = buffer.getLong(offset + COUNTERPARTY);
+        long amount = buffer.getLong(offset + AMOUNT);
+        int score = buffer.getInt(offset + CREDIT_SCORE);
+        int typeCode = buffer.get(offset + TYPE);
+        int statusCode = buffer.get(offset + STATUS);
+        int eventCode = buffer.get(offset + EVENT);
+        long tail = buffer.getLong(offset + TAIL);
+        int tailInt = buffer.getInt(offset + TAIL_INT);
+        if (typeCode < 0 || typeCode >= TYPES.length || eventCode < -1 || eventCode >= EVENTS.length) {
+            return false;
+        }
+        boolean endOfDay = TYPES[typeCode] == JournalRecordType.END_OF_DAY;
+        if (endOfDay ? statusCode != -1 : statusCode < 0 || statusCode >= STATUSES.length) {
+            return false;
+        }
+        if (buffer.getInt(offset + CHECKSUM) != checksum(seq, time, account, counterparty, amount, score,
+                typeCode, statusCode, eventCode, tail, tailInt)) {
+            return false;
+        }
+        Currency recordCurrency = endOfDay ? null : currencyOf(buffer.getShort(offset + CURRENCY));
+        if (!endOfDay && recordCurrency == null) {
+            return false;
+        }
+
+        sequence = seq;
+        timestampMillis = time;
+        type = TYPES[typeCode];
+        event = eventCode < 0 ? null : EVENTS[eventCode];
+        if (endOfDay) {
+            accountId = NO_ACCOUNT;
+            counterpartyId = 0;
+            amountCents = 0;
+            creditScore = 0;
+            status = null;
+            currency = null;
+            firstStoreId = (int) counterparty;
+            storeAccounts = score;
+            interestCents = amount;
+            feeCents = tail;
+        } else {
+            accountId = account;
+            counterpartyId = counterparty;
+            amountCents = amount;
+            creditScore = score;
+            status = STATUSES[statusCode];
+            currency = recordCurrency;
+            firstStoreId = 0;
+            storeAccounts = 0;
+            interestCents = 0;
+            feeCents = 0;
+        }
+        return true;
+    }
+
+    private static int checksum(long sequence, long timestampMillis, long accountId, long counterpartyId,
+                                long amountCents, int creditScore, int type, int status, int event,
+                                long tail, int tailInt) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = (h ^ sequence) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ timestampMillis) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ accountId) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ counterpartyId) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ amountCents) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ creditScore) * 0xBF58476D1CE4E5B9L;
+        if (tail != 0 || tailInt != 0) {
+            h = (h ^ tail) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ tailInt) * 0xBF58476D1CE4E5B9L;
+        }
+        h = (h ^ ((type << 16) | ((status & 0xFF) << 8) | (event & 0xFF))) * 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,14 @@
+// Kinds of record written to the TransactionJournal
+public enum JournalRecordType {
+    // snapshot of an account when it is attached to the journal
+    OPEN,
+    DEPOSIT,
+    WITHDRAWAL,
+    // informational marker; the money moved is also recorded as a WITHDRAWAL and a DEPOSIT
+    TRANSFER,
+    STATUS,
+    CREDIT_SCORE,
+    // one EndOfDayBatch chunk of AccountStore ids, read through JournalRecord's END_OF_DAY accessors
+    // (AccountStore is not replayed)
+    END_OF_DAY
+}
@@ -0,0 +1,369 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// JournalRecovery.java
+// Rebuilds every Account from a TransactionJournal after a restart.
+//
+// The journal is read once, sequentially, and its records are split into partitions by account id.
+// Each partition is then replayed on the ForkJoinPool independently, since no record touches two
+// accounts' state (TRANSFER records are markers; the money moved is in the WITHDRAWAL/DEPOSIT pair).
+// Status events go through Account.nextStatus, the same FSM the live accounts use.
+//
+// A snapshot file stores every account's state as of a journal sequence. Recovery loads it and
+// replays only the records after that sequence, so snapshot() run periodically caps startup time.
+// Each account keeps the currency its OPEN record names.
+public class JournalRecovery {
+
+    private static final int SNAPSHOT_MAGIC = 0x534E4150; // "SNAP"
+    // version 2 adds each account's currency; version 1 snapshots load with the default currency
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private static final JournalRecordType[] TYPES = JournalRecordType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final StatusEvent[] EVENTS = StatusEvent.values();
+
+    private final ForkJoinPool pool;
+    private final int partitions;
+
+    public JournalRecovery() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public JournalRecovery(ForkJoinPool pool, int partitions) {
+        if (partitions <= 0) throw new IllegalArgumentException("partitions must be positive");
+        this.pool = pool;
+        this.partitions = partitions;
+    }
+
+    // Recovers from the journal alone, or from the snapshot plus the journal records after it.
+    // The snapshot may be null or a file that does not exist yet.
+    public Result recover(Path journal, Path snapshot) throws IOException {
+        long started = System.nanoTime();
+
+        Partition[] parts = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            parts[i] = new Partition();
+        }
+
+        long snapshotSequence = 0;
+        if (snapshot != null && Files.exists(snapshot)) {
+            snapshotSequence = loadSnapshot(snapshot, parts);
+        }
+
+        long replayed = 0;
+        long lastSequence = snapshotSequence;
+        if (Files.exists(journal)) {
+            JournalRecord record = new JournalRecord();
+            try (JournalReader reader = new JournalReader(journal)) {
+                // sequence n is stored at record index n - 1
+                reader.seek(snapshotSequence);
+                while (reader.next(record)) {
+                    // end-of-day chunks summarise AccountStore ids, not journaled accounts
+                    if (record.getType() != JournalRecordType.END_OF_DAY) {
+                        parts[partitionOf(record.getAccountId())].add(record);
+                    }
+                    lastSequence = record.getSequence();
+                    replayed++;
+                }
+            }
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(partitions);
+        for (Partition part : parts) {
+            tasks.add(pool.submit(part::replay));
+        }
+        long mismatches = 0;
+        int accountCount = 0;
+        for (int i = 0; i < partitions; i++) {
+            tasks.get(i).join();
+            mismatches += parts[i].fsmMismatches;
+            accountCount += parts[i].table.size;
+        }
+
+        Map<Long, Account> accounts = new HashMap<>(accountCount * 4 / 3 + 1);
+        for (Partition part : parts) {
+            part.table.forEach(accounts);
+        }
+
+        return new Result(accounts, lastSequence, replayed, mismatches, System.nanoTime() - started);
+    }
+
+    // Recovers as above and writes the result as the new snapshot, replacing the old one atomically
+    public Result snapshot(Path journal, Path snapshot) throws IOException {
+        Result result = recover(journal, snapshot);
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(result.getLastSequence());
+            out.writeInt(result.getAccounts().size());
+            for (Account account : result.getAccounts().values()) {
+                out.writeLong(account.getId());
+                out.writeLong(account.getBalanceCents());
+                out.writeInt(account.getCreditScore());
+                out.writeByte(account.getStatus().ordinal());
+                out.writeShort(JournalRecord.currencyCode(account.getCurrency()));
+            }
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return result;
+    }
+
+    // Refreshes the snapshot at a fixed period; each run only replays what was appended since the last one
+    public ScheduledFuture<?> scheduleSnapshots(ScheduledExecutorService scheduler, Path journal, Path snapshot,
+                                                long period, TimeUnit unit) {
+        return scheduler.scheduleAtFixedRate(() -> {
+            try {
+                snapshot(journal, snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, period, period, unit);
+    }
+
+    private long loadSnapshot(Path snapshot, Partition[] parts) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+            if (version != 1 && version != SNAPSHOT_VERSION) {
+                throw new IOException("not a journal snapshot: " + snapshot);
+            }
+            long sequence = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long balance = in.readLong();
+                int score = in.readInt();
+                int status = in.readByte();
+                short currency = version == 1 ? 0 : in.readShort();
+                if (JournalRecord.currencyOf(currency) == null) {
+                    throw new IOException("unknown currency " + currency + " in snapshot " + snapshot);
+                }
+                parts[partitionOf(id)].table.slotFor(id, balance, score, (byte) status, currency);
+            }
+            return sequence;
+        }
+    }
+
+    private int partitionOf(long accountId) {
+        return (int) Long.remainderUnsigned(accountId * 0x9E3779B97F4A7C15L >>> 16, partitions);
+    }
+
+    // Records of one partition in columns, so buffering millions of them does not allocate per record
+    private static final class Partition {
+        private long[] accountIds = new long[64];
+        private long[] amounts = new long[64];
+        private int[] scores = new int[64];
+        private byte[] types = new byte[64];
+        private byte[] statuses = new byte[64];
+        private byte[] events = new byte[64];
+        private short[] currencies = new short[64];
+        private int size;
+
+        private final AccountTable table = new AccountTable();
+        private long fsmMismatches;
+
+        void add(JournalRecord record) {
+            if (size == accountIds.length) {
+                int capacity = size * 2;
+                accountIds = Arrays.copyOf(accountIds, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                types = Arrays.copyOf(types, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                events = Arrays.copyOf(events, capacity);
+                currencies = Arrays.copyOf(currencies, capacity);
+            }
+            accountIds[size] = record.getAccountId();
+            amounts[size] = record.getAmountCents();
+            scores[size] = record.getCreditScore();
+            types[size] = (byte) record.getType().ordinal();
+            statuses[size] = (byte) record.getStatus().ordinal();
+            events[size] = record.getEvent() == null ? -1 : (byte) record.getEvent().ordinal();
+            currencies[size] = (short) record.getCurrency().getNumericCode();
+            size++;
+        }
+
+        void replay() {
+            AccountTable t = table;
+            for (int i = 0; i < size; i++) {
+                int slot = t.slotFor(accountIds[i], 0, scores[i], statuses[i], currencies[i]);
+                switch (TYPES[types[i]]) {
+                    case OPEN:
+                        t.balances[slot] = amounts[i];
+                        t.scores[slot] = scores[i];
+                        t.statuses[slot] = statuses[i];
+                        t.currencies[slot] = currencies[i];
+                        break;
+                    case DEPOSIT:
+                        t.balances[slot] += amounts[i];
+                        break;
+                    case WITHDRAWAL:
+                        t.balances[slot] -= amounts[i];
+                        break;
+                    case STATUS:
+                        applyStatus(t, slot, events[i], statuses[i]);
+                        break;
+                    case CREDIT_SCORE:
+                        t.scores[slot] = scores[i];
+                        break;
+                    default:
+                        // TRANSFER carries no state of its own
+                        break;
+                }
+            }
+            // the buffered records are no longer needed
+            accountIds = null;
+            amounts = null;
+            scores = null;
+            types = null;
+            statuses = null;
+            events = null;
+            currencies = null;
+        }
+
+        private void applyStatus(AccountTable t, int slot, byte event, byte recorded) {
+            if (event < 0 || EVENTS[event] == StatusEvent.SET_STATUS) {
+                t.statuses[slot] = recorded;
+                return;
+            }
+            Status next = Account.nextStatus(STATUSES[t.statuses[slot]], EVENTS[event]);
+            if (next == null) {
+                // the log disagrees with the FSM; keep the state the FSM allows
+                fsmMismatches++;
+                return;
+            }
+            if (next.ordinal() != recorded) fsmMismatches++;
+            t.statuses[slot] = (byte) next.ordinal();
+        }
+    }
+
+    // Open-addressing map from account id to its state held in parallel primitive arrays
+    private static final class AccountTable {
+        private long[] ids = new long[16];
+        private boolean[] used = new boolean[16];
+        private long[] balances = new long[16];
+        private int[] scores = new int[16];
+        private byte[] statuses = new byte[16];
+        private short[] currencies = new short[16];
+        private int size;
+
+        // slot of the id, inserting it with the given state if it is new
+        int slotFor(long id, long balance, int score, byte status, short currency) {
+            int mask = ids.length - 1;
+            int slot = (int) (id * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (used[slot]) {
+                if (ids[slot] == id) return slot;
+                slot = (slot + 1) & mask;
+            }
+            if ((size + 1) * 2 > ids.length) {
+                grow();
+                return slotFor(id, balance, score, status, currency);
+            }
+            used[slot] = true;
+            ids[slot] = id;
+            balances[slot] = balance;
+            scores[slot] = score;
+            statuses[slot] = status;
+            currencies[slot] = currency;
+            size++;
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldIds = ids;
+            boolean[] oldUsed = used;
+            long[] oldBalances = balances;
+            int[] oldScores = scores;
+            byte[] oldStatuses = statuses;
+            short[] oldCurrencies = currencies;
+            int capacity = oldIds.length * 2;
+            ids = new long[capacity];
+            used = new boolean[capacity];
+            balances = new long[capacity];
+            scores = new int[capacity];
+            statuses = new byte[capacity];
+            currencies = new short[capacity];
+            size = 0;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldUsed[i]) {
+                    slotFor(oldIds[i], oldBalances[i], oldScores[i], oldStatuses[i], oldCurrencies[i]);
+                }
+            }
+        }
+
+        void forEach(Map<Long, Account> into) {
+            for (int i = 0; i < ids.length; i++) {
+                if (used[i]) {
+                    into.put(ids[i], Account.ofCents(ids[i], balances[i], STATUSES[statuses[i]], scores[i],
+                            JournalRecord.currencyOf(currencies[i])));
+                }
+            }
+        }
+    }
+
+    public static final class Result {
+        private final Map<Long, Account> accounts;
+        private final long lastSequence;
+        private final long recordsReplayed;
+        private final long fsmMismatches;
+        private final long elapsedNanos;
+
+        Result(Map<Long, Account> accounts, long lastSequence, long recordsReplayed, long fsmMismatches, long elapsedNanos) {
+            this.accounts = accounts;
+            this.lastSequence = lastSequence;
+            this.recordsReplayed = recordsReplayed;
+            this.fsmMismatches = fsmMismatches;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // recovered accounts by id; they have no observers attached yet
+        public Map<Long, Account> getAccounts() {
+            return accounts;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        // journal records read after the snapshot
+        public long getRecordsReplayed() {
+            return recordsReplayed;
+        }
+
+        // status records the FSM would not have produced from the replayed state
+        public long getFsmMismatches() {
+            return fsmMismatches;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getRecordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : recordsReplayed * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Recovered %d accounts from %d records in %.1f ms (%.0f records/sec)",
+                    accounts.size(), recordsReplayed, elapsedNanos / 1e6, getRecordsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Recovery: balances, statuses and credit scores match the live accounts")
+    public void rebuildsLiveState() throws Exception {
+        Path journalFile = dir.resolve("journal.bin");
+        List<Account> live = runWorkload(journalFile, 50, 5_000, 7);
+
+        JournalRecovery.Result result = new JournalRecovery(ForkJoinPool.commonPool(), 8).recover(journalFile, null);
+
+        assertLiveStateMatches(live, result.getAccounts());
+        assertEquals(0, result.getFsmMismatches());
+        assertTrue(result.getRecordsPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Recovery: FSM transitions are replayed through the same rules")
+    public void replaysFsmTransitions() throws Exception {
+        Path journalFile = dir.resolve("fsm.bin");
+        Account account = new Account(100, Status.UNVERIFIED);
+
+        try (TransactionJournal journal = new TransactionJournal(journalFile)) {
+            journal.attach(account);
+            account.verify();
+            account.violation();
+            account.appeal();
+            account.violation();
+            account.adminAction();
+        }
+
+        Account recovered = new JournalRecovery().recover(journalFile, null).getAccounts().get(account.getId());
+        assertEquals(Status.CLOSED, recovered.getStatus());
+        assertEquals(10_000, recovered.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Recovery: a snapshot limits replay to the records written after it")
+    public void snapshotCapsReplay() throws Exception {
+        Path journalFile = dir.resolve("snap-journal.bin");
+        Path snapshotFile = dir.resolve("accounts.snapshot");
+        Account account = new Account(0, Status.VERIFIED);
+        JournalRecovery recovery = new JournalRecovery(ForkJoinPool.commonPool(), 4);
+
+        try (TransactionJournal journal = new TransactionJournal(journalFile)) {
+            journal.attach(account);
+            for (int i = 0; i < 1000; i++) {
+                account.deposit(1);
+            }
+            journal.awaitDurable(journal.getLastSequence());
+
+            JournalRecovery.Result first = recovery.snapshot(journalFile, snapshotFile);
+            assertEquals(1001, first.getRecordsReplayed());
+
+            for (int i = 0; i < 10; i++) {
+                account.withdraw(1);
+            }
+            account.setCreditScore(640);
+        }
+
+        JournalRecovery.Result second = recovery.recover(journalFile, snapshotFile);
+        assertEquals(11, second.getRecordsReplayed());
+        Account recovered = second.getAccounts().get(account.getId());
+        assertEquals(99_000, recovered.getBalanceCents());
+        assertEquals(640, recovered.getCreditScore());
+    }
+
+    @Test
+    @DisplayName("Recovery: accounts keep their currency through the journal and the snapshot")
+    public void keepsCurrency() throws Exception {
+        Path journalFile = dir.resolve("currency.bin");
+        Path snapshotFile = dir.resolve("currency.snapshot");
+        Account euros = new Account(1L, 250, Status.VERIFIED, 700, Currency.getInstance("EUR"));
+        Account dollars = new Account(2L, 100, Status.VERIFIED, 700);
+
+        try (TransactionJournal journal = new TransactionJournal(journalFile)) {
+            journal.attach(euros);
+            journal.attach(dollars);
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.attach(new Account(3L, 0, Status.VERIFIED, 700, Currency.getInstance("XFU"))));
+            euros.deposit(10);
+        }
+
+        JournalRecovery recovery = new JournalRecovery(ForkJoinPool.commonPool(), 4);
+        Map<Long, Account> replayed = recovery.recover(journalFile, null).getAccounts();
+        assertEquals(2, replayed.size());
+        assertEquals(Currency.getInstance("EUR"), replayed.get(1L).getCurrency());
+        assertEquals(26_000, replayed.get(1L).getBalanceCents());
+        assertEquals(Account.DEFAULT_CURRENCY, replayed.get(2L).getCurrency());
+
+        recovery.snapshot(journalFile, snapshotFile);
+        Map<Long, Account> loaded = recovery.recover(journalFile, snapshotFile).getAccounts();
+        assertEquals(Currency.getInstance("EUR"), loaded.get(1L).getCurrency());
+        assertEquals(Account.DEFAULT_CURRENCY, loaded.get(2L).getCurrency());
+    }
+
+    @Test
+    @DisplayName("Recovery: the partition count does not change the result")
+    public void partitionCountDoesNotMatter() throws Exception {
+        Path journalFile = dir.resolve("parts.bin");
+        List<Account> live = runWorkload(journalFile, 200, 20_000, 11);
+
+        for (int partitions : new int[] {1, 3, 64}) {
+            JournalRecovery.Result result = new JournalRecovery(ForkJoinPool.commonPool(), partitions)
+                    .recover(journalFile, null);
+            assertLiveStateMatches(live, result.getAccounts());
+        }
+    }
+
+    private static List<Account> runWorkload(Path journalFile, int accountCount, int operations, long seed) throws Exception {
+        Random random = new Random(seed);
+        List<Account> accounts = new ArrayList<>();
+        try (TransactionJournal journal = new TransactionJournal(journalFile)) {
+            TransactionProcessor processor = new TransactionProcessor(journal);
+            for (int i = 0; i < accountCount; i++) {
+                Account account = new Account(random.nextInt(1000), Status.values()[random.nextInt(4)], 550 + random.nextInt(200));
+                journal.attach(account);
+                accounts.add(account);
+            }
+            for (int i = 0; i < operations; i++) {
+                Account a = accounts.get(random.nextInt(accountCount));
+                Account b = accounts.get(random.nextInt(accountCount));
+                switch (random.nextInt(8)) {
+                    case 0: a.deposit(random.nextInt(10_000) / 100.0); break;
+                    case 1: a.withdraw(random.nextInt(10_000) / 100.0); break;
+                    case 2: a.verify(); break;
+                    case 3: a.violation(); break;
+                    case 4: a.appeal(); break;
+                    case 5: a.setCreditScore(550 + random.nextInt(200)); break;
+                    default: processor.processTransfer(a, b, random.nextInt(5_000) / 100.0); break;
+                }
+            }
+        }
+        return accounts;
+    }
+
+    private static void assertLiveStateMatches(List<Account> live, Map<Long, Account> recovered) {
+        assertEquals(live.size(), recovered.size());
+        for (Account account : live) {
+            Account copy = recovered.get(account.getId());
+            assertNotNull(copy);
+            assertEquals(account.getBalanceCents(), copy.getBalanceCents());
+            assertEquals(account.getStatus(), copy.getStatus());
+            assertEquals(account.getCreditScore(), copy.getCreditScore());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LoadGenerator.java
+// Local load generator for BankingHttpServer. Each simulated client sends deposit, statement and
+// transfer requests back to back and records every latency; the totals are printed as p50/p99.
+//
+//   java LoadGenerator [baseUrl] [clients] [requestsPerClient]
+//   java LoadGenerator http://localhost:8080 1000 200
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int requestsPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        Report report = run(baseUrl, clients, requestsPerClient);
+        System.out.println(report);
+    }
+
+    public static Report run(String baseUrl, int clients, int requestsPerClient) throws Exception {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest[] requests = {
+                HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/1/deposit?amount=0.01"))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/1/statement")).GET().build(),
+                HttpRequest.newBuilder(URI.create(baseUrl + "/transfers?from=1&to=2&amount=0.01"))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build(),
+        };
+
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+        ExecutorService pool = BankingHttpServer.newRequestExecutor();
+        long started = System.nanoTime();
+        try {
+            for (int c = 0; c < clients; c++) {
+                futures.add(pool.submit(() -> {
+                    long[] latencies = new long[requestsPerClient];
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(requests[i % requests.length],
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500) errors.incrementAndGet();
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - sent;
+                    }
+                    return latencies;
+                }));
+            }
+
+            long[] all = new long[clients * requestsPerClient];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+                offset += latencies.length;
+            }
+            long elapsed = System.nanoTime() - started;
+            Arrays.sort(all);
+            return new Report(all, errors.get(), elapsed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static final class Report {
+        private final long[] sortedLatencies;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Report(long[] sortedLatencies, long errors, long elapsedNanos) {
+            this.sortedLatencies = sortedLatencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRequests() {
+            return sortedLatencies.length;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long percentileNanos(double percentile) {
+            if (sortedLatencies.length == 0) return 0;
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        public double getRequestsPerSecond() {
+            return sortedLatencies.length * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d errors, %.0f req/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    getRequests(), errors, getRequestsPerSecond(), percentileNanos(50) / 1e6,
+                    percentileNanos(99) / 1e6, percentileNanos(100) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// MpscRingBuffer.java
+// Bounded, lock-free ring buffer for many producers and one consumer. Every slot carries a
+// sequence number that says whether it is free for the producer of a given lap or holds an element
+// for the consumer, so producers claim slots with one CAS and never block each other or the consumer.
+public final class MpscRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // only the consumer thread touches head
+    private long head;
+
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+        }
+        elements = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    // Adds the element, or returns false at once if the buffer is full
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    // publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+            // another producer claimed this slot first; retry with the new tail
+        }
+    }
+
+    // Consumer only: removes the oldest element, or returns null if none is ready
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) return null;
+        E element = (E) elements[index];
+        elements[index] = null;
+        // frees the slot for the producer one lap ahead
+        sequences.set(index, head + elements.length);
+        head++;
+        return element;
+    }
+
+    // Consumer only: hands up to limit ready elements to the handler and returns how many there were
+    public int drain(Consumer<? super E> handler, int limit) {
+        int drained = 0;
+        E element;
+        while (drained < limit && (element = poll()) != null) {
+            handler.accept(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    // Approximate when producers or the consumer are active
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,32 @@
+// OperationResult.java
+// Why a deposit, withdrawal or transfer succeeded or was turned down. Account and TransactionProcessor
+// return these shared constants from the same pass that applies the operation, so asking for the
+// reason costs no allocation and no second evaluation of the checks.
+public enum OperationResult {
+    OK,
+    CREDIT_INELIGIBLE,
+    CLOSED,
+    SUSPENDED,
+    UNVERIFIED,
+    NON_POSITIVE,
+    INSUFFICIENT_FUNDS,
+    // the balance would overflow
+    LIMIT_EXCEEDED,
+    // too many withdrawals per minute, or too much withdrawn per day (VelocityLimiter)
+    VELOCITY_LIMIT,
+    // a transfer was given a null account
+    MISSING_ACCOUNT,
+    // a transfer between currencies that the rate table cannot convert, or a multi-leg
+    // transaction whose legs are not all in one currency
+    NO_EXCHANGE_RATE,
+    // the debits and credits of a multi-leg transaction do not net to zero
+    UNBALANCED,
+    // the amount text could not be parsed (ClientController only)
+    INVALID_AMOUNT,
+    // an idempotency key was reused for a different transfer (ClientController only)
+    IDEMPOTENCY_CONFLICT;
+
+    public boolean isSuccess() {
+        return this == OK;
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperationResultTest {
+
+    @Test
+    @DisplayName("Result codes: withdrawals name the first check that failed")
+    public void withdrawalReasons() {
+        assertEquals(OperationResult.OK, new Account(100, Status.VERIFIED, 700).tryWithdrawCents(100));
+        assertEquals(OperationResult.CREDIT_INELIGIBLE, new Account(100, Status.SUSPENDED, 500).tryWithdrawCents(100));
+        assertEquals(OperationResult.CLOSED, new Account(100, Status.CLOSED, 700).tryWithdrawCents(100));
+        assertEquals(OperationResult.SUSPENDED, new Account(100, Status.SUSPENDED, 700).tryWithdrawCents(100));
+        assertEquals(OperationResult.UNVERIFIED, new Account(100, Status.UNVERIFIED, 700).tryWithdrawCents(100));
+        assertEquals(OperationResult.NON_POSITIVE, new Account(100, Status.VERIFIED, 700).tryWithdrawCents(-1));
+        assertEquals(OperationResult.INSUFFICIENT_FUNDS, new Account(100, Status.VERIFIED, 700).tryWithdrawCents(10_001));
+    }
+
+    @Test
+    @DisplayName("Result codes: deposits name the first check that failed")
+    public void depositReasons() {
+        assertEquals(OperationResult.OK, new Account(0, Status.SUSPENDED, 700).tryDepositCents(100));
+        assertEquals(OperationResult.CREDIT_INELIGIBLE, new Account(0, Status.VERIFIED, 599).tryDepositCents(100));
+        assertEquals(OperationResult.CLOSED, new Account(0, Status.CLOSED, 700).tryDepositCents(100));
+        assertEquals(OperationResult.UNVERIFIED, new Account(0, Status.UNVERIFIED, 700).tryDepositCents(100));
+        assertEquals(OperationResult.NON_POSITIVE, new Account(0, Status.VERIFIED, 700).tryDepositCents(0));
+        assertEquals(OperationResult.LIMIT_EXCEEDED,
+                Account.ofCents(1, Long.MAX_VALUE - 10, Status.VERIFIED, 700).tryDepositCents(11));
+    }
+
+    @Test
+    @DisplayName("Result codes: a transfer reports the source first, then the target")
+    public void transferReasons() {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account source = new Account(100, Status.VERIFIED);
+        Account closed = new Account(0, Status.CLOSED);
+        Account suspended = new Account(100, Status.SUSPENDED);
+
+        assertEquals(OperationResult.CLOSED, processor.tryTransferCents(source, closed, 100));
+        assertEquals(10_000, source.getBalanceCents(), "The refused target must not keep the money");
+        assertEquals(OperationResult.SUSPENDED, processor.tryTransferCents(suspended, closed, 100));
+        assertEquals(OperationResult.MISSING_ACCOUNT, processor.tryTransferCents(source, null, 100));
+        assertEquals(OperationResult.INSUFFICIENT_FUNDS,
+                processor.submitTransfer(source, suspended, 500).join().getResult());
+        assertEquals(OperationResult.OK, processor.tryTransferCents(source, suspended, 100));
+    }
+
+    @Test
+    @DisplayName("Result codes: the controller keeps its messages and exposes the cause")
+    public void controllerReasons() {
+        ClientController controller = new ClientController();
+        Account suspended = new Account(100, Status.SUSPENDED);
+
+        assertEquals(OperationResult.SUSPENDED, controller.tryWithdraw(suspended, "10"));
+        assertEquals("Withdrawal failed", controller.handleWithdraw(suspended, "10"));
+        assertEquals(OperationResult.INVALID_AMOUNT, controller.tryDeposit(suspended, "ten"));
+        assertEquals(ControllerResult.INVALID_INPUT, controller.deposit(suspended, "ten"));
+        assertEquals(OperationResult.OK, controller.tryDeposit(suspended, "10"));
+    }
+}
@@ -0,0 +1,207 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// ShardedTransactionEngine.java
+// Single-writer transfer engine in the style of the LMAX disruptor. Accounts are sharded by id across
+// N worker threads, and each worker is the only thread that moves money for its accounts, so balance
+// updates never contend and no account lock is taken on the transfer path.
+//
+// Callers submit transfers into the source shard's lock-free ring buffer. A transfer within one shard
+// completes there. A cross-shard transfer is two steps: the source shard debits and hands a credit to
+// the target shard; if the credit is refused, the target shard sends a refund back to the source shard.
+// The returned future completes only after the final step, so a false result always means no money moved.
+// close() stops new submissions and lets the workers finish every transfer already accepted, including
+// credits and refunds still travelling between shards, before they exit.
+//
+// Accounts should only be changed through the engine while it runs; direct deposits and withdrawals
+// are still safe (Account uses CAS) but give up the single-writer benefit.
+public class ShardedTransactionEngine implements AutoCloseable {
+
+    public static final int DEFAULT_RING_CAPACITY = 1 << 14;
+
+    private static final int SPINS_BEFORE_PARK = 200;
+    private static final long PARK_NANOS = 50_000;
+
+    private final Shard[] shards;
+    private volatile boolean running = true;
+    // transfers accepted and not completed yet; workers only exit once this is zero
+    private final AtomicLong inFlight = new AtomicLong();
+
+    public ShardedTransactionEngine(int shardCount) {
+        this(shardCount, DEFAULT_RING_CAPACITY);
+    }
+
+    public ShardedTransactionEngine(int shardCount, int ringCapacity) {
+        if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be positive");
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringCapacity);
+        }
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(Account account) {
+        return (int) Math.floorMod(account.getId(), (long) shards.length);
+    }
+
+    // Queues a transfer; if the source shard's ring is full, waits for room (backpressure).
+    // Throws IllegalStateException once the engine is closed.
+    public CompletableFuture<Boolean> submitTransfer(Account source, Account target, long amountCents) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // the engine moves money one to one, so both sides must share a currency
+        if (source == null || target == null || amountCents <= 0 || source.getCurrency() != target.getCurrency()) {
+            result.complete(false);
+            return result;
+        }
+        Shard shard = shards[shardOf(source)];
+        Command command = new Command(source, target, amountCents, result);
+        // count the transfer before checking running: a worker that saw running == false and nothing
+        // in flight has exited, and then this check sees running == false too
+        inFlight.incrementAndGet();
+        while (!running || !shard.ring.offer(command)) {
+            if (!running) {
+                inFlight.decrementAndGet();
+                throw new IllegalStateException("engine is closed");
+            }
+            Thread.onSpinWait();
+        }
+        shard.wake();
+        return result;
+    }
+
+    // Stops taking transfers and waits for the accepted ones to finish
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static final int DEBIT = 0;
+    private static final int CREDIT = 1;
+    private static final int REFUND = 2;
+
+    private static final class Command {
+        final Account source;
+        final Account target;
+        final long amountCents;
+        final CompletableFuture<Boolean> result;
+        int step = DEBIT;
+
+        Command(Account source, Account target, long amountCents, CompletableFuture<Boolean> result) {
+            this.source = source;
+            this.target = target;
+            this.amountCents = amountCents;
+            this.result = result;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        final MpscRingBuffer<Command> ring;
+        // credits and refunds from other shards; at most two per in-flight transfer, so it stays small
+        final ConcurrentLinkedQueue<Command> handoffs = new ConcurrentLinkedQueue<>();
+        final Thread thread;
+        volatile boolean parked;
+
+        Shard(int index, int ringCapacity) {
+            ring = new MpscRingBuffer<>(ringCapacity);
+            thread = new Thread(this, "transaction-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        void wake() {
+            if (parked) LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                int work = 0;
+                Command handoff;
+                // second steps first: they finish transfers that already hold money in flight
+                while ((handoff = handoffs.poll()) != null) {
+                    execute(handoff);
+                    work++;
+                }
+                work += ring.drain(this::execute, 256);
+
+                if (work > 0) {
+                    idle = 0;
+                } else if (!running && inFlight.get() == 0) {
+                    return;
+                } else if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    parked = true;
+                    if (ring.size() == 0 && handoffs.isEmpty()) {
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                    parked = false;
+                }
+            }
+        }
+
+        private void execute(Command command) {
+            switch (command.step) {
+                case DEBIT:
+                    if (!command.source.withdrawCents(command.amountCents)) {
+                        finish(command, false);
+                    } else if (shards[shardOf(command.target)] == this) {
+                        credit(command);
+                    } else {
+                        command.step = CREDIT;
+                        send(shards[shardOf(command.target)], command);
+                    }
+                    break;
+                case CREDIT:
+                    credit(command);
+                    break;
+                default:
+                    // REFUND: skips the deposit checks so the source always gets its money back
+                    command.source.refundCents(command.amountCents);
+                    finish(command, false);
+                    break;
+            }
+        }
+
+        private void credit(Command command) {
+            if (command.target.depositCents(command.amountCents)) {
+                finish(command, true);
+            } else if (shards[shardOf(command.source)] == this) {
+                command.source.refundCents(command.amountCents);
+                finish(command, false);
+            } else {
+                command.step = REFUND;
+                send(shards[shardOf(command.source)], command);
+            }
+        }
+
+        private void finish(Command command, boolean moved) {
+            inFlight.decrementAndGet();
+            command.result.complete(moved);
+        }
+
+        private void send(Shard to, Command command) {
+            to.handoffs.offer(command);
+            to.wake();
+        }
+    }
+}
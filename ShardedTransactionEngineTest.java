@@ -0,0 +1,162 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedTransactionEngineTest {
+
+    @Test
+    @DisplayName("Engine: transfer within one shard moves the money")
+    public void sameShardTransfer() {
+        try (ShardedTransactionEngine engine = new ShardedTransactionEngine(2)) {
+            Account source = new Account(2L, 100, Status.VERIFIED, 700);
+            Account target = new Account(4L, 0, Status.VERIFIED, 700);
+            assertEquals(engine.shardOf(source), engine.shardOf(target));
+
+            assertTrue(engine.submitTransfer(source, target, 2_500).join());
+            assertEquals(7_500, source.getBalanceCents());
+            assertEquals(2_500, target.getBalanceCents());
+        }
+    }
+
+    @Test
+    @DisplayName("Engine: cross-shard transfer debits then credits")
+    public void crossShardTransfer() {
+        try (ShardedTransactionEngine engine = new ShardedTransactionEngine(2)) {
+            Account source = new Account(1L, 100, Status.VERIFIED, 700);
+            Account target = new Account(2L, 0, Status.VERIFIED, 700);
+            assertNotEquals(engine.shardOf(source), engine.shardOf(target));
+
+            assertTrue(engine.submitTransfer(source, target, 4_000).join());
+            assertEquals(6_000, source.getBalanceCents());
+            assertEquals(4_000, target.getBalanceCents());
+        }
+    }
+
+    @Test
+    @DisplayName("Engine: refused cross-shard credit refunds the source")
+    public void crossShardRefund() {
+        try (ShardedTransactionEngine engine = new ShardedTransactionEngine(2)) {
+            Account source = new Account(1L, 100, Status.VERIFIED, 700);
+            Account closed = new Account(2L, 0, Status.CLOSED, 700);
+
+            assertFalse(engine.submitTransfer(source, closed, 4_000).join());
+            assertEquals(10_000, source.getBalanceCents());
+            assertEquals(0, closed.getBalanceCents());
+        }
+    }
+
+    @Test
+    @DisplayName("Engine: insufficient funds and invalid amounts fail without moving money")
+    public void rejectedTransfers() {
+        try (ShardedTransactionEngine engine = new ShardedTransactionEngine(2)) {
+            Account source = new Account(1L, 10, Status.VERIFIED, 700);
+            Account target = new Account(2L, 0, Status.VERIFIED, 700);
+
+            assertFalse(engine.submitTransfer(source, target, 1_001).join());
+            assertFalse(engine.submitTransfer(source, target, 0).join());
+            assertFalse(engine.submitTransfer(null, target, 100).join());
+            assertEquals(1_000, source.getBalanceCents());
+            assertEquals(0, target.getBalanceCents());
+        }
+    }
+
+    @Test
+    @DisplayName("Stress: many producers across shards conserve the total money")
+    public void concurrentProducersConserveMoney() throws Exception {
+        Account[] accounts = new Account[16];
+        for (int i = 0; i < accounts.length; i++) {
+            // one closed account forces refunds along the way
+            accounts[i] = new Account(i, 1000, i == 5 ? Status.CLOSED : Status.VERIFIED, 700);
+        }
+        long totalBefore = total(accounts);
+
+        // a small ring also exercises the full-ring backpressure path
+        try (ShardedTransactionEngine engine = new ShardedTransactionEngine(4, 64)) {
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            List<Future<?>> producers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                producers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    List<CompletableFuture<Boolean>> results = new ArrayList<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        Account source = accounts[random.nextInt(accounts.length)];
+                        Account target = accounts[random.nextInt(accounts.length)];
+                        results.add(engine.submitTransfer(source, target, random.nextInt(1, 5000)));
+                    }
+                    CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+                    return null;
+                }));
+            }
+            for (Future<?> producer : producers) {
+                producer.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+        }
+
+        assertEquals(totalBefore, total(accounts), "Transfers must not create or destroy money");
+        for (Account account : accounts) {
+            assertTrue(account.getBalanceCents() >= 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Engine: close finishes accepted cross-shard transfers and refuses new ones")
+    public void closeDrainsInFlightTransfers() {
+        Account[] accounts = new Account[8];
+        for (int i = 0; i < accounts.length; i++) {
+            // the closed account sends refunds back across shards while the engine shuts down
+            accounts[i] = new Account(i, 1000, i == 3 ? Status.CLOSED : Status.VERIFIED, 700);
+        }
+        long totalBefore = total(accounts);
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        ShardedTransactionEngine engine = new ShardedTransactionEngine(4, 1 << 12);
+        for (int i = 0; i < 4_000; i++) {
+            results.add(engine.submitTransfer(accounts[i % 8], accounts[(i * 3 + 1) % 8], 10));
+        }
+        engine.close();
+
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.isDone(), "Every accepted transfer completes before close returns");
+        }
+        assertEquals(totalBefore, total(accounts));
+        assertThrows(IllegalStateException.class, () -> engine.submitTransfer(accounts[0], accounts[1], 10));
+    }
+
+    @Test
+    @DisplayName("Ring buffer: elements come out in order and a full ring refuses offers")
+    public void ringBufferOrderAndCapacity() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, ring.drain(drained::add, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(ring.poll());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(6));
+    }
+
+    private static long total(Account[] accounts) {
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalanceCents();
+        }
+        return total;
+    }
+}
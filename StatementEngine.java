@@ -0,0 +1,247 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// StatementEngine.java
+// Writes an account statement (one line per deposit, withdrawal or opening balance, with the running
+// balance) as CSV or JSON, straight from the TransactionJournal file into a WritableByteChannel.
+//
+// Records are streamed through a JournalReader and formatted as ASCII into one reusable direct
+// buffer that is drained to the channel whenever it fills, so no list of entries and no String per
+// line is ever built and memory stays the same for ten entries or ten million.
+//
+// Pages are cut with a cursor rather than an offset: each Page returns the journal index to resume
+// at and the balance reached so far, so the next page seeks straight there instead of re-reading
+// everything before it.
+public class StatementEngine {
+
+    public enum Format { CSV, JSON }
+
+    private static final int BUFFER_BYTES = 64 << 10;
+    // more than the longest line either format writes
+    private static final int MAX_LINE_BYTES = 256;
+
+    private static final byte[] CSV_HEADER = ascii("sequence,time,type,amount,balance\n");
+    private static final byte[] JSON_START = ascii("{\"accountId\":");
+    private static final byte[] JSON_ENTRIES = ascii(",\"entries\":[");
+    private static final byte[] JSON_SEQUENCE = ascii("{\"sequence\":");
+    private static final byte[] JSON_TIME = ascii(",\"time\":\"");
+    private static final byte[] JSON_TYPE = ascii("\",\"type\":\"");
+    private static final byte[] JSON_AMOUNT = ascii("\",\"amount\":\"");
+    private static final byte[] JSON_BALANCE = ascii("\",\"balance\":\"");
+    private static final byte[] JSON_ENTRY_END = ascii("\"}");
+    private static final byte[] JSON_CLOSING = ascii("],\"closingBalance\":\"");
+    private static final byte[] JSON_HAS_MORE = ascii("\",\"hasMore\":");
+    private static final byte[] JSON_CURSOR = ascii(",\"nextCursor\":");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] NULL = ascii("null");
+
+    private static final byte[][] TYPE_NAMES = new byte[JournalRecordType.values().length][];
+
+    static {
+        for (JournalRecordType type : JournalRecordType.values()) {
+            TYPE_NAMES[type.ordinal()] = ascii(type.name());
+        }
+    }
+
+    // Where a statement stopped; pass it back to write() to get the next page
+    public static final class Page {
+
+        private final long nextRecordIndex;
+        private final long closingBalanceCents;
+        private final int entries;
+        private final boolean hasMore;
+
+        Page(long nextRecordIndex, long closingBalanceCents, int entries, boolean hasMore) {
+            this.nextRecordIndex = nextRecordIndex;
+            this.closingBalanceCents = closingBalanceCents;
+            this.entries = entries;
+            this.hasMore = hasMore;
+        }
+
+        // Journal index the next page starts reading at
+        public long getNextRecordIndex() {
+            return nextRecordIndex;
+        }
+
+        // Balance after the last entry of this page
+        public long getClosingBalanceCents() {
+            return closingBalanceCents;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
+    private final Path journal;
+
+    public StatementEngine(Path journal) {
+        this.journal = journal;
+    }
+
+    // Writes the whole statement for the account
+    public Page write(long accountId, Format format, WritableByteChannel out) throws IOException {
+        return write(accountId, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, null, format, out);
+    }
+
+    /**
+     * Writes up to limit entries for the account with fromMillis <= timestamp < toMillis, starting
+     * after the given page (or from the start of the journal when it is null). Entries before
+     * fromMillis are not written but still count towards the running balance.
+     */
+    public Page write(long accountId, long fromMillis, long toMillis, int limit, Page after,
+                      Format format, WritableByteChannel out) throws IOException {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        JournalRecord record = new JournalRecord();
+        long balance = after == null ? 0 : after.getClosingBalanceCents();
+        int entries = 0;
+        boolean hasMore = false;
+        long nextIndex;
+
+        if (format == Format.CSV) {
+            if (after == null) buffer.put(CSV_HEADER);
+        } else {
+            AmountParser.putDigits(buffer.put(JSON_START), accountId).put(JSON_ENTRIES);
+        }
+
+        try (JournalReader reader = new JournalReader(journal)) {
+            if (after != null) reader.seek(after.getNextRecordIndex());
+            while (true) {
+                nextIndex = reader.position();
+                if (!reader.next(record)) break;
+                if (record.getAccountId() != accountId) continue;
+
+                long amount;
+                switch (record.getType()) {
+                    case OPEN:
+                        amount = record.getAmountCents() - balance;
+                        break;
+                    case DEPOSIT:
+                        amount = record.getAmountCents();
+                        break;
+                    case WITHDRAWAL:
+                        amount = -record.getAmountCents();
+                        break;
+                    default:
+                        continue;
+                }
+
+                long timestamp = record.getTimestampMillis();
+                if (timestamp >= toMillis) break;
+                if (timestamp < fromMillis) {
+                    balance += amount;
+                    continue;
+                }
+                if (entries == limit) {
+                    // this entry starts the next page
+                    hasMore = true;
+                    break;
+                }
+
+                balance += amount;
+                if (buffer.remaining() < MAX_LINE_BYTES) drain(buffer, out);
+                if (format == Format.CSV) {
+                    putCsvLine(buffer, record, amount, balance);
+                } else {
+                    putJsonEntry(buffer, record, amount, balance, entries == 0);
+                }
+                entries++;
+            }
+        }
+
+        if (format == Format.JSON) {
+            if (buffer.remaining() < MAX_LINE_BYTES) drain(buffer, out);
+            AmountParser.putCents(buffer.put(JSON_CLOSING), balance)
+                    .put(JSON_HAS_MORE).put(hasMore ? TRUE : FALSE).put(JSON_CURSOR);
+            if (hasMore) {
+                AmountParser.putDigits(buffer, nextIndex);
+            } else {
+                buffer.put(NULL);
+            }
+            buffer.put((byte) '}');
+        }
+        drain(buffer, out);
+        return new Page(nextIndex, balance, entries, hasMore);
+    }
+
+    private static void putCsvLine(ByteBuffer buffer, JournalRecord record, long amount, long balance) {
+        AmountParser.putDigits(buffer, record.getSequence()).put((byte) ',');
+        putTimestamp(buffer, record.getTimestampMillis()).put((byte) ',');
+        buffer.put(TYPE_NAMES[record.getType().ordinal()]).put((byte) ',');
+        AmountParser.putCents(buffer, amount).put((byte) ',');
+        AmountParser.putCents(buffer, balance).put((byte) '\n');
+    }
+
+    private static void putJsonEntry(ByteBuffer buffer, JournalRecord record, long amount, long balance, boolean first) {
+        if (!first) buffer.put((byte) ',');
+        AmountParser.putDigits(buffer.put(JSON_SEQUENCE), record.getSequence()).put(JSON_TIME);
+        putTimestamp(buffer, record.getTimestampMillis()).put(JSON_TYPE);
+        buffer.put(TYPE_NAMES[record.getType().ordinal()]).put(JSON_AMOUNT);
+        AmountParser.putCents(buffer, amount).put(JSON_BALANCE);
+        AmountParser.putCents(buffer, balance).put(JSON_ENTRY_END);
+    }
+
+    // Writes epoch millis as UTC "2024-03-09T14:05:07.250Z" without going through java.time
+    static ByteBuffer putTimestamp(ByteBuffer buffer, long epochMillis) {
+        long days = Math.floorDiv(epochMillis, 86_400_000L);
+        int millisOfDay = (int) Math.floorMod(epochMillis, 86_400_000L);
+
+        // civil date from a day count (proleptic Gregorian), era by era of 400 years
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        putPadded(buffer, year, 4).put((byte) '-');
+        putPadded(buffer, month, 2).put((byte) '-');
+        putPadded(buffer, day, 2).put((byte) 'T');
+        putPadded(buffer, millisOfDay / 3_600_000, 2).put((byte) ':');
+        putPadded(buffer, millisOfDay / 60_000 % 60, 2).put((byte) ':');
+        putPadded(buffer, millisOfDay / 1000 % 60, 2).put((byte) '.');
+        return putPadded(buffer, millisOfDay % 1000, 3).put((byte) 'Z');
+    }
+
+    private static ByteBuffer putPadded(ByteBuffer buffer, long value, int width) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        for (long bound = pow10(width - 1); bound > 1 && value < bound; bound /= 10) {
+            buffer.put((byte) '0');
+        }
+        return AmountParser.putDigits(buffer, value);
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        while (exponent-- > 0) result *= 10;
+        return result;
+    }
+
+    private static void drain(ByteBuffer buffer, WritableByteChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,151 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementEngineTest {
+
+    @TempDir
+    Path dir;
+
+    // journals the account (plus a second one, to be filtered out) while the operations run
+    private Path journalWith(Account account, Runnable operations) throws Exception {
+        Path file = dir.resolve("journal.dat");
+        try (TransactionJournal journal = new TransactionJournal(file, 1 << 16, 1, 16)) {
+            Account other = new Account(2L, 50, Status.VERIFIED, 700);
+            journal.attach(account);
+            journal.attach(other);
+            operations.run();
+            other.depositCents(1);
+        }
+        return file;
+    }
+
+    private static String write(StatementEngine engine, long accountId, StatementEngine.Format format) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        engine.write(accountId, format, Channels.newChannel(bytes));
+        return bytes.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    @DisplayName("Statement: CSV lists the account's entries with a running balance")
+    public void csvStatement() throws Exception {
+        Account account = new Account(1L, 100, Status.VERIFIED, 700);
+        Path file = journalWith(account, () -> {
+            account.depositCents(2_550);
+            account.withdrawCents(10_000);
+            account.withdrawCents(1_000_000);
+        });
+
+        String[] lines = write(new StatementEngine(file), 1L, StatementEngine.Format.CSV).split("\n");
+        assertEquals("sequence,time,type,amount,balance", lines[0]);
+        assertEquals(4, lines.length, "Only account 1's money movements, and not the refused withdrawal");
+        assertTrue(lines[1].matches("1,\\d{4}-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d{3}Z,OPEN,100\\.00,100\\.00"), lines[1]);
+        assertTrue(lines[2].endsWith(",DEPOSIT,25.50,125.50"), lines[2]);
+        assertTrue(lines[3].endsWith(",WITHDRAWAL,-100.00,25.50"), lines[3]);
+    }
+
+    @Test
+    @DisplayName("Statement: JSON has the entries, the closing balance and no cursor when complete")
+    public void jsonStatement() throws Exception {
+        Account account = new Account(1L, 0, Status.VERIFIED, 700);
+        Path file = journalWith(account, () -> account.depositCents(5));
+
+        String json = write(new StatementEngine(file), 1L, StatementEngine.Format.JSON);
+        assertTrue(json.startsWith("{\"accountId\":1,\"entries\":[{\"sequence\":1,\"time\":\""), json);
+        assertTrue(json.contains("\"type\":\"OPEN\",\"amount\":\"0.00\",\"balance\":\"0.00\"},{\"sequence\":3,"), json);
+        assertTrue(json.endsWith("\"type\":\"DEPOSIT\",\"amount\":\"0.05\",\"balance\":\"0.05\"}],"
+                + "\"closingBalance\":\"0.05\",\"hasMore\":false,\"nextCursor\":null}"), json);
+        assertEquals("{\"accountId\":9,\"entries\":[],\"closingBalance\":\"0.00\",\"hasMore\":false,\"nextCursor\":null}",
+                write(new StatementEngine(file), 9L, StatementEngine.Format.JSON));
+    }
+
+    @Test
+    @DisplayName("Statement: pages joined together are the full statement")
+    public void pagination() throws Exception {
+        Account account = new Account(1L, 0, Status.VERIFIED, 700);
+        Path file = journalWith(account, () -> {
+            for (int i = 1; i <= 2_000; i++) account.depositCents(i);
+        });
+        StatementEngine engine = new StatementEngine(file);
+        String full = write(engine, 1L, StatementEngine.Format.CSV);
+
+        ByteArrayOutputStream paged = new ByteArrayOutputStream();
+        StatementEngine.Page page = null;
+        int pages = 0;
+        do {
+            page = engine.write(1L, Long.MIN_VALUE, Long.MAX_VALUE, 300, page,
+                    StatementEngine.Format.CSV, Channels.newChannel(paged));
+            pages++;
+        } while (page.hasMore());
+
+        assertEquals(7, pages);
+        assertEquals(201, page.getEntries(), "2,001 entries counting the opening balance");
+        assertEquals(2_000L * 2_001 / 2, page.getClosingBalanceCents());
+        assertEquals(full, paged.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    @DisplayName("Statement: a date range keeps the balance of the entries before it")
+    public void dateRange() throws Exception {
+        Account account = new Account(1L, 10, Status.VERIFIED, 700);
+        Path file = journalWith(account, () -> {
+            account.depositCents(100);
+            sleep(5);
+            account.depositCents(200);
+            account.withdrawCents(50);
+            sleep(5);
+            account.depositCents(400);
+        });
+        long[] times = new long[4];
+        try (JournalReader reader = new JournalReader(file)) {
+            JournalRecord record = new JournalRecord();
+            int i = 0;
+            while (reader.next(record)) {
+                if (record.getAccountId() == 1L && record.getType() != JournalRecordType.OPEN) {
+                    times[i++] = record.getTimestampMillis();
+                }
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StatementEngine.Page page = new StatementEngine(file).write(1L, times[1], times[3], 10, null,
+                StatementEngine.Format.CSV, Channels.newChannel(bytes));
+        String[] lines = bytes.toString(StandardCharsets.US_ASCII).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].endsWith(",DEPOSIT,2.00,13.00"), lines[1]);
+        assertTrue(lines[2].endsWith(",WITHDRAWAL,-0.50,12.50"), lines[2]);
+        assertFalse(page.hasMore());
+        assertEquals(1_250, page.getClosingBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Statement: timestamps are formatted as ISO-8601 UTC")
+    public void timestampFormat() {
+        DateTimeFormatter iso = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+        long[] samples = {0L, 1L, 951_782_400_000L, 1_709_993_107_250L, 4_102_444_799_999L, -1L, -86_400_001L};
+        for (long millis : samples) {
+            ByteBuffer buffer = ByteBuffer.allocate(32);
+            StatementEngine.putTimestamp(buffer, millis).flip();
+            assertEquals(iso.format(Instant.ofEpochMilli(millis)), StandardCharsets.US_ASCII.decode(buffer).toString());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+// The ways an account's Status can change; the first four are the FSM transitions
+public enum StatusEvent {
+    VERIFY,
+    VIOLATION,
+    APPEAL,
+    ADMIN_ACTION,
+    SET_STATUS
+}
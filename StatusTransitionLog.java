@@ -0,0 +1,251 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// StatusTransitionLog.java
+// Append-only file of account status transitions, 24 bytes each:
+//
+//   0  timestamp millis (8)   8  account id (8)   16 event   17 from   18 to   19 reserved   20 checksum (4)
+//
+// Attached accounts append one record per verify/violation/appeal/adminAction, and setStatus appends
+// a SET_STATUS record, so the FSM's history is never lost. Every record is checked against the
+// StatusTransitions table when it is written and again when the log is folded back into statuses.
+// An append that fails for an attached account cannot undo the status change it describes, so it is
+// counted and kept in getLastFailure() instead of being thrown into the account's observer loop.
+//
+// Timestamps never go backwards, so the file is sorted by time and forEach finds the start of a
+// time window by binary search, then streams only that window through a small reusable buffer.
+// Queries read with positional reads and never block appends.
+public class StatusTransitionLog implements AccountObserver, Closeable {
+
+    public static final int RECORD_SIZE = 24;
+
+    private static final int TIMESTAMP = 0;
+    private static final int ACCOUNT = 8;
+    private static final int EVENT = 16;
+    private static final int FROM = 17;
+    private static final int TO = 18;
+    private static final int CHECKSUM = 20;
+
+    private static final int READ_BATCH = 512;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final StatusEvent[] EVENTS = StatusEvent.values();
+
+    // Receives one transition; called for each record of a query, in time order
+    public interface Visitor {
+        void visit(long timestampMillis, long accountId, StatusEvent event, Status from, Status to);
+    }
+
+    private final FileChannel channel;
+    private final LongSupplier clock;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    // records that are fully written; readers never look past this
+    private volatile long count;
+    private long lastTimestamp;
+    // appends from attached accounts that could not be written
+    private volatile long failures;
+    private volatile RuntimeException lastFailure;
+
+    public StatusTransitionLog(Path file) throws IOException {
+        this(file, System::currentTimeMillis);
+    }
+
+    StatusTransitionLog(Path file, LongSupplier clock) throws IOException {
+        this.clock = clock;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        // drop a torn record at the end, left by a crash in the middle of an append
+        long records = channel.size() / RECORD_SIZE;
+        ByteBuffer last = ByteBuffer.allocate(RECORD_SIZE);
+        while (records > 0 && !readValid(last, (records - 1) * RECORD_SIZE)) {
+            records--;
+        }
+        channel.truncate(records * RECORD_SIZE);
+        count = records;
+        lastTimestamp = records == 0 ? Long.MIN_VALUE : last.getLong(TIMESTAMP);
+    }
+
+    // Starts recording the account's status changes
+    public void attach(Account account) {
+        account.addObserver(this);
+    }
+
+    public void detach(Account account) {
+        account.removeObserver(this);
+    }
+
+    @Override
+    public void onStatusChange(Account account, StatusEvent event, Status from, Status to) {
+        try {
+            append(account.getId(), event, from, to);
+        } catch (RuntimeException e) {
+            // the status has already changed and the other observers still have to hear about it
+            synchronized (this) {
+                failures++;
+                lastFailure = e;
+            }
+        }
+    }
+
+    // Transitions of attached accounts that were not recorded: a gap in the log
+    public long getFailures() {
+        return failures;
+    }
+
+    // Why the most recent of those appends failed, or null if none has
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    // Appends one transition; FSM events must match the transition table
+    public synchronized void append(long accountId, StatusEvent event, Status from, Status to) {
+        if (event != StatusEvent.SET_STATUS && StatusTransitions.next(from, event) != to) {
+            throw new IllegalArgumentException(event + " does not lead from " + from + " to " + to);
+        }
+        if (!channel.isOpen()) throw new IllegalStateException("transition log is closed");
+
+        long timestamp = Math.max(clock.getAsLong(), lastTimestamp);
+        ByteBuffer record = writeBuffer.clear();
+        record.putLong(TIMESTAMP, timestamp)
+                .putLong(ACCOUNT, accountId)
+                .put(EVENT, (byte) event.ordinal())
+                .put(FROM, (byte) from.ordinal())
+                .put(TO, (byte) to.ordinal())
+                .put(TO + 1, (byte) 0)
+                .putInt(CHECKSUM, checksum(timestamp, accountId, event.ordinal(), from.ordinal(), to.ordinal()));
+        try {
+            long position = count * RECORD_SIZE;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastTimestamp = timestamp;
+        count++;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Visits the transitions with fromMillis <= timestamp < toMillis in time order and returns how
+     * many there were. Only the records inside the window are read.
+     */
+    public long forEach(long fromMillis, long toMillis, Visitor visitor) throws IOException {
+        long end = count;
+        long index = firstAtOrAfter(fromMillis, end);
+        long visited = 0;
+        ByteBuffer batch = ByteBuffer.allocate(READ_BATCH * RECORD_SIZE);
+
+        while (index < end) {
+            int records = (int) Math.min(READ_BATCH, end - index);
+            readFully(batch.clear().limit(records * RECORD_SIZE), index * RECORD_SIZE);
+            for (int i = 0; i < records; i++) {
+                int offset = i * RECORD_SIZE;
+                long timestamp = batch.getLong(offset + TIMESTAMP);
+                if (timestamp >= toMillis) return visited;
+                visitor.visit(timestamp, batch.getLong(offset + ACCOUNT), EVENTS[batch.get(offset + EVENT)],
+                        STATUSES[batch.get(offset + FROM)], STATUSES[batch.get(offset + TO)]);
+                visited++;
+            }
+            index += records;
+        }
+        return visited;
+    }
+
+    public long forEach(Visitor visitor) throws IOException {
+        return forEach(Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+    }
+
+    // The current status of every account in the log, folded from its transitions
+    public Map<Long, Status> fold() throws IOException {
+        Map<Long, Status> statuses = new HashMap<>();
+        forEach((time, accountId, event, from, to) -> statuses.put(accountId,
+                foldStep(statuses.getOrDefault(accountId, from), accountId, event, from, to)));
+        return statuses;
+    }
+
+    // The current status of one account, or null if the log has no transitions for it
+    public Status fold(long accountId) throws IOException {
+        Status[] current = new Status[1];
+        forEach((time, id, event, from, to) -> {
+            if (id == accountId) current[0] = foldStep(current[0] == null ? from : current[0], id, event, from, to);
+        });
+        return current[0];
+    }
+
+    // the fold follows the table, and a record that does not continue from the folded state means a gap
+    private static Status foldStep(Status current, long accountId, StatusEvent event, Status from, Status to) {
+        if (current != from) {
+            throw new IllegalStateException("account " + accountId + " is " + current + " but the log continues from " + from);
+        }
+        Status next = StatusTransitions.apply(current, event, to);
+        if (next == null || next != to) {
+            throw new IllegalStateException("account " + accountId + ": " + event + " from " + from + " is not a valid transition");
+        }
+        return next;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) return;
+        channel.force(false);
+        channel.close();
+    }
+
+    // index of the first record at or after the timestamp, by binary search over the sorted file
+    private long firstAtOrAfter(long timestampMillis, long end) throws IOException {
+        ByteBuffer stamp = ByteBuffer.allocate(Long.BYTES);
+        long low = 0;
+        long high = end;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            readFully(stamp.clear(), mid * RECORD_SIZE + TIMESTAMP);
+            if (stamp.getLong(0) < timestampMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean readValid(ByteBuffer record, long position) throws IOException {
+        readFully(record.clear(), position);
+        int event = record.get(EVENT);
+        int from = record.get(FROM);
+        int to = record.get(TO);
+        if (event < 0 || event >= EVENTS.length || from < 0 || from >= STATUSES.length
+                || to < 0 || to >= STATUSES.length) {
+            return false;
+        }
+        return record.getInt(CHECKSUM) == checksum(record.getLong(TIMESTAMP), record.getLong(ACCOUNT), event, from, to);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("transition log ended early at " + position);
+            position += read;
+        }
+    }
+
+    private static int checksum(long timestampMillis, long accountId, int event, int from, int to) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = (h ^ timestampMillis) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ accountId) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ ((event << 16) | (from << 8) | to)) * 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 32));
+    }
+}
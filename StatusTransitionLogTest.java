@@ -0,0 +1,175 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusTransitionLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Transition log: folding the log gives every account's current status")
+    public void foldMatchesAccounts() throws Exception {
+        try (StatusTransitionLog log = new StatusTransitionLog(dir.resolve("status.log"))) {
+            Account a = new Account(1L, 100, Status.UNVERIFIED, 700);
+            Account b = new Account(2L, 100, Status.VERIFIED, 700);
+            log.attach(a);
+            log.attach(b);
+
+            assertTrue(a.verify());
+            assertTrue(b.violation());
+            assertTrue(a.violation());
+            assertFalse(a.verify(), "A rejected event must not be logged");
+            assertTrue(a.appeal());
+            assertTrue(b.adminAction());
+            b.setStatus(Status.VERIFIED);
+
+            assertEquals(6, log.size());
+            Map<Long, Status> folded = log.fold();
+            assertEquals(a.getStatus(), folded.get(1L));
+            assertEquals(b.getStatus(), folded.get(2L));
+            assertEquals(Status.VERIFIED, log.fold(2L));
+            assertNull(log.fold(3L));
+        }
+    }
+
+    @Test
+    @DisplayName("Transition log: appends that break the transition table are refused")
+    public void invalidAppendRejected() throws Exception {
+        try (StatusTransitionLog log = new StatusTransitionLog(dir.resolve("status.log"))) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> log.append(1L, StatusEvent.VERIFY, Status.CLOSED, Status.VERIFIED));
+            assertThrows(IllegalArgumentException.class,
+                    () -> log.append(1L, StatusEvent.ADMIN_ACTION, Status.VERIFIED, Status.CLOSED));
+            log.append(1L, StatusEvent.SET_STATUS, Status.CLOSED, Status.VERIFIED);
+            assertEquals(1, log.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Transition log: a time window query visits only that window, in order")
+    public void timeWindowQuery() throws Exception {
+        AtomicLong clock = new AtomicLong(1_000);
+        try (StatusTransitionLog log = new StatusTransitionLog(dir.resolve("status.log"), clock::get)) {
+            for (long id = 0; id < 1000; id++) {
+                clock.set(1_000 + id * 10);
+                log.append(id, StatusEvent.VERIFY, Status.UNVERIFIED, Status.VERIFIED);
+            }
+
+            List<Long> ids = new ArrayList<>();
+            long visited = log.forEach(3_000, 3_050, (time, id, event, from, to) -> ids.add(id));
+            assertEquals(5, visited);
+            assertEquals(List.of(200L, 201L, 202L, 203L, 204L), ids);
+            assertEquals(0, log.forEach(50_000, 60_000, (time, id, event, from, to) -> fail()));
+        }
+    }
+
+    @Test
+    @DisplayName("Transition log: timestamps never go backwards")
+    public void monotonicTimestamps() throws Exception {
+        AtomicLong clock = new AtomicLong(5_000);
+        try (StatusTransitionLog log = new StatusTransitionLog(dir.resolve("status.log"), clock::get)) {
+            log.append(1L, StatusEvent.VERIFY, Status.UNVERIFIED, Status.VERIFIED);
+            clock.set(4_000);
+            log.append(1L, StatusEvent.VIOLATION, Status.VERIFIED, Status.SUSPENDED);
+
+            List<Long> times = new ArrayList<>();
+            log.forEach((time, id, event, from, to) -> times.add(time));
+            assertEquals(List.of(5_000L, 5_000L), times);
+        }
+    }
+
+    @Test
+    @DisplayName("Transition log: a failed append is counted and the status change still completes")
+    public void failedAppendDoesNotBreakStatusChange() throws Exception {
+        StatusTransitionLog log = new StatusTransitionLog(dir.resolve("status.log"));
+        Account account = new Account(0, Status.UNVERIFIED);
+        List<Status> seen = new ArrayList<>();
+        log.attach(account);
+        account.addObserver(new AccountObserver() {
+            @Override
+            public void onStatusChange(Account changed, StatusEvent event, Status from, Status to) {
+                seen.add(to);
+            }
+        });
+        log.close();
+
+        assertTrue(account.verify());
+        assertEquals(Status.VERIFIED, account.getStatus());
+        assertEquals(List.of(Status.VERIFIED), seen);
+        assertEquals(1, log.getFailures());
+        assertInstanceOf(IllegalStateException.class, log.getLastFailure());
+    }
+
+    @Test
+    @DisplayName("Transition log: reopening drops a torn record and keeps appending")
+    public void reopenAfterTornWrite() throws Exception {
+        Path file = dir.resolve("status.log");
+        try (StatusTransitionLog log = new StatusTransitionLog(file)) {
+            log.append(7L, StatusEvent.VERIFY, Status.UNVERIFIED, Status.VERIFIED);
+            log.append(7L, StatusEvent.VIOLATION, Status.VERIFIED, Status.SUSPENDED);
+        }
+        // half a record, as if the process died mid-append
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(StatusTransitionLog.RECORD_SIZE / 2));
+        }
+
+        try (StatusTransitionLog log = new StatusTransitionLog(file)) {
+            assertEquals(2, log.size());
+            assertEquals(2L * StatusTransitionLog.RECORD_SIZE, Files.size(file));
+            log.append(7L, StatusEvent.APPEAL, Status.SUSPENDED, Status.VERIFIED);
+            assertEquals(Status.VERIFIED, log.fold(7L));
+        }
+    }
+
+    @Test
+    @DisplayName("Transition table: matches the FSM transitions")
+    public void transitionTable() {
+        for (Status from : Status.values()) {
+            for (StatusEvent event : StatusEvent.values()) {
+                Status expected = null;
+                if (from == Status.UNVERIFIED && event == StatusEvent.VERIFY) expected = Status.VERIFIED;
+                if (from == Status.VERIFIED && event == StatusEvent.VIOLATION) expected = Status.SUSPENDED;
+                if (from == Status.SUSPENDED && event == StatusEvent.APPEAL) expected = Status.VERIFIED;
+                if (from == Status.SUSPENDED && event == StatusEvent.ADMIN_ACTION) expected = Status.CLOSED;
+                assertEquals(expected, StatusTransitions.next(from, event), from + " + " + event);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Transition table: deposit and withdrawal lookups match the status rules")
+    public void permissionTable() {
+        for (Status status : Status.values()) {
+            for (int score : new int[] {Integer.MIN_VALUE, 0, 599, 600, 601, Integer.MAX_VALUE}) {
+                OperationResult deposit = OperationResult.OK;
+                OperationResult withdraw = OperationResult.OK;
+                if (score < 600) {
+                    deposit = withdraw = OperationResult.CREDIT_INELIGIBLE;
+                } else if (status == Status.CLOSED) {
+                    deposit = withdraw = OperationResult.CLOSED;
+                } else if (status == Status.UNVERIFIED) {
+                    deposit = withdraw = OperationResult.UNVERIFIED;
+                } else if (status == Status.SUSPENDED) {
+                    withdraw = OperationResult.SUSPENDED;
+                }
+                assertEquals(deposit, StatusTransitions.depositCheck(status, score), status + " " + score);
+                assertEquals(withdraw, StatusTransitions.withdrawCheck(status, score), status + " " + score);
+            }
+        }
+        assertEquals(StatusTransitions.DEPOSIT | StatusTransitions.WITHDRAW, StatusTransitions.permissions(Status.VERIFIED));
+        assertEquals(0, StatusTransitions.permissions(Status.CLOSED));
+    }
+}
@@ -0,0 +1,110 @@
+// StatusTransitions.java
+// The account FSM as a lookup table: one row per current Status, one column per StatusEvent, and each
+// cell holds the next Status or null where the event is not allowed. These are the transitions
+// AccountFSMTest covers:
+//
+//   UNVERIFIED --VERIFY--> VERIFIED --VIOLATION--> SUSPENDED --APPEAL--> VERIFIED
+//                                                  SUSPENDED --ADMIN_ACTION--> CLOSED
+//
+// SET_STATUS is an administrative override outside the FSM, so its column stays empty.
+//
+// Deposit and withdrawal rules are tables too: a permission bitmask per status, folded together with
+// credit eligibility into one OperationResult per (status, eligible) pair. Checking an operation is
+// then a single array lookup instead of a chain of status comparisons.
+final class StatusTransitions {
+
+    // permission bits
+    static final int DEPOSIT = 1;
+    static final int WITHDRAW = 1 << 1;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final StatusEvent[] EVENTS = StatusEvent.values();
+
+    private static final Status[][] NEXT = new Status[STATUSES.length][EVENTS.length];
+    // [event][status ordinal] -> next status ordinal, or the same ordinal where the event is not allowed
+    private static final byte[][] NEXT_OR_SAME = new byte[EVENTS.length][STATUSES.length];
+    private static final int[] PERMISSIONS = new int[STATUSES.length];
+    // [status ordinal << 1 | creditEligible] -> outcome of the status and credit checks
+    private static final OperationResult[] DEPOSIT_CHECKS = new OperationResult[STATUSES.length << 1];
+    private static final OperationResult[] WITHDRAW_CHECKS = new OperationResult[STATUSES.length << 1];
+
+    static {
+        allow(Status.UNVERIFIED, StatusEvent.VERIFY, Status.VERIFIED);
+        allow(Status.VERIFIED, StatusEvent.VIOLATION, Status.SUSPENDED);
+        allow(Status.SUSPENDED, StatusEvent.APPEAL, Status.VERIFIED);
+        allow(Status.SUSPENDED, StatusEvent.ADMIN_ACTION, Status.CLOSED);
+
+        permit(Status.VERIFIED, DEPOSIT | WITHDRAW);
+        permit(Status.SUSPENDED, DEPOSIT);
+        // UNVERIFIED and CLOSED get no permissions
+
+        for (Status status : STATUSES) {
+            for (StatusEvent event : EVENTS) {
+                Status next = NEXT[status.ordinal()][event.ordinal()];
+                NEXT_OR_SAME[event.ordinal()][status.ordinal()] = (byte) (next == null ? status : next).ordinal();
+            }
+            // credit eligibility is checked first, then the status
+            int row = status.ordinal() << 1;
+            DEPOSIT_CHECKS[row] = OperationResult.CREDIT_INELIGIBLE;
+            WITHDRAW_CHECKS[row] = OperationResult.CREDIT_INELIGIBLE;
+            DEPOSIT_CHECKS[row | 1] = (PERMISSIONS[status.ordinal()] & DEPOSIT) != 0 ? OperationResult.OK : rejection(status);
+            WITHDRAW_CHECKS[row | 1] = (PERMISSIONS[status.ordinal()] & WITHDRAW) != 0 ? OperationResult.OK : rejection(status);
+        }
+    }
+
+    private StatusTransitions() {
+    }
+
+    private static void allow(Status from, StatusEvent event, Status to) {
+        NEXT[from.ordinal()][event.ordinal()] = to;
+    }
+
+    private static void permit(Status status, int permissions) {
+        PERMISSIONS[status.ordinal()] = permissions;
+    }
+
+    private static OperationResult rejection(Status status) {
+        switch (status) {
+            case CLOSED:
+                return OperationResult.CLOSED;
+            case SUSPENDED:
+                return OperationResult.SUSPENDED;
+            case UNVERIFIED:
+                return OperationResult.UNVERIFIED;
+            default:
+                throw new IllegalStateException(status + " has no rejection reason");
+        }
+    }
+
+    static int permissions(Status status) {
+        return PERMISSIONS[status.ordinal()];
+    }
+
+    static OperationResult depositCheck(Status status, int creditScore) {
+        return DEPOSIT_CHECKS[(status.ordinal() << 1) | creditEligible(creditScore)];
+    }
+
+    static OperationResult withdrawCheck(Status status, int creditScore) {
+        return WITHDRAW_CHECKS[(status.ordinal() << 1) | creditEligible(creditScore)];
+    }
+
+    // 1 when the score meets the threshold, computed from the sign bit rather than a branch
+    private static int creditEligible(int creditScore) {
+        return (int) (((long) creditScore - Account.getCreditScoreThreshold()) >>> 63) ^ 1;
+    }
+
+    // The event's column as status ordinals, for AccountStore's byte-level status array. Shared: do not modify.
+    static byte[] nextOrSame(StatusEvent event) {
+        return NEXT_OR_SAME[event.ordinal()];
+    }
+
+    // Where the event leads from the given status, or null if it is not allowed there
+    static Status next(Status current, StatusEvent event) {
+        return NEXT[current.ordinal()][event.ordinal()];
+    }
+
+    // One step of folding a transition stream: FSM events go through the table, SET_STATUS takes the recorded target
+    static Status apply(Status current, StatusEvent event, Status recordedTarget) {
+        return event == StatusEvent.SET_STATUS ? recordedTarget : next(current, event);
+    }
+}
@@ -0,0 +1,268 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Currency;
+
+// TransactionJournal.java
+// Append-only, memory-mapped log of every account mutation, in fixed-width JournalRecord slots.
+//
+// Appends copy the record into a MappedByteBuffer and return at once. A background flusher forces
+// the mapped pages to disk for whole groups of records (group commit): it waits until groupSize
+// records are pending or flushIntervalMillis has passed, then one force() covers them all.
+// Callers that must know a record is on disk call awaitDurable(sequence).
+//
+// The file grows one mapped region at a time. Reopening an existing file continues after its
+// last valid record.
+//
+// Accounts should be attached before they take traffic. Plain deposits and withdrawals change the
+// balance without the account lock, so one that runs while attach() reads the OPEN balance can be
+// missed by the journal or counted twice, and replay would then disagree with the live balance.
+public class TransactionJournal implements AccountObserver, Closeable {
+
+    public static final int DEFAULT_REGION_BYTES = 64 << 20;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 2;
+    public static final int DEFAULT_GROUP_SIZE = 512;
+
+    private final FileChannel channel;
+    private final int regionBytes;
+    private final long flushIntervalMillis;
+    private final int groupSize;
+    private final Thread flusher;
+
+    // all guarded by this
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long writePosition;
+    private long lastSequence;
+    private long lastTimestamp;
+    private long durableSequence;
+    private long flushCount;
+    private boolean closed;
+
+    public TransactionJournal(Path file) throws IOException {
+        this(file, DEFAULT_REGION_BYTES, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_GROUP_SIZE);
+    }
+
+    public TransactionJournal(Path file, int regionBytes, long flushIntervalMillis, int groupSize) throws IOException {
+        if (regionBytes < JournalRecord.SIZE || regionBytes % JournalRecord.SIZE != 0) {
+            throw new IllegalArgumentException("regionBytes must be a positive multiple of " + JournalRecord.SIZE);
+        }
+        this.regionBytes = regionBytes;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.groupSize = groupSize;
+
+        // find where the previous run stopped writing
+        if (file.toFile().exists()) {
+            try (JournalReader reader = new JournalReader(file)) {
+                JournalRecord record = new JournalRecord();
+                while (reader.next(record)) {
+                    lastSequence = record.getSequence();
+                    lastTimestamp = record.getTimestampMillis();
+                }
+                writePosition = reader.position() * JournalRecord.SIZE;
+            }
+        }
+        durableSequence = lastSequence;
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        regionStart = writePosition - writePosition % regionBytes;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionBytes);
+
+        flusher = new Thread(this::flushLoop, "transaction-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Writes an OPEN snapshot of the account and then records every change it makes; call it before
+    // the account takes traffic, see above. Throws IllegalArgumentException for a currency the
+    // journal cannot record, see JournalRecord.
+    public void attach(Account account) {
+        JournalRecord.currencyCode(account.getCurrency());
+        account.lock().lock();
+        try {
+            append(JournalRecordType.OPEN, account.getId(), 0, account.getBalanceCents(),
+                    account.getCreditScore(), account.getStatus(), null, account.getCurrency());
+            account.addObserver(this);
+        } finally {
+            account.lock().unlock();
+        }
+    }
+
+    public void detach(Account account) {
+        account.removeObserver(this);
+    }
+
+    @Override
+    public void onDeposit(Account account, long amountCents) {
+        append(JournalRecordType.DEPOSIT, account.getId(), 0, amountCents,
+                account.getCreditScore(), account.getStatus(), null, account.getCurrency());
+    }
+
+    @Override
+    public void onWithdraw(Account account, long amountCents) {
+        append(JournalRecordType.WITHDRAWAL, account.getId(), 0, amountCents,
+                account.getCreditScore(), account.getStatus(), null, account.getCurrency());
+    }
+
+    @Override
+    public void onStatusChange(Account account, StatusEvent event, Status from, Status to) {
+        append(JournalRecordType.STATUS, account.getId(), 0, 0, account.getCreditScore(), to, event,
+                account.getCurrency());
+    }
+
+    @Override
+    public void onCreditScoreChange(Account account, int from, int to) {
+        append(JournalRecordType.CREDIT_SCORE, account.getId(), 0, 0, to, account.getStatus(), null,
+                account.getCurrency());
+    }
+
+    public long recordTransfer(Account source, Account target, long amountCents) {
+        return append(JournalRecordType.TRANSFER, source.getId(), target.getId(), amountCents,
+                source.getCreditScore(), source.getStatus(), null, source.getCurrency());
+    }
+
+    // Summarises one end-of-day chunk of AccountStore ids [firstId, firstId + accounts); the record
+    // belongs to no account, see JournalRecord
+    public synchronized long recordEndOfDay(int firstId, int accounts, long interestCents, long feeCents) {
+        int offset = nextSlot();
+        JournalRecord.writeEndOfDay(region, offset, lastSequence, lastTimestamp, firstId, accounts, interestCents,
+                feeCents);
+        return written();
+    }
+
+    // Appends one record and returns its sequence number; it is durable once awaitDurable(sequence) returns
+    public long append(JournalRecordType type, long accountId, long counterpartyId, long amountCents,
+                       int creditScore, Status status, StatusEvent event) {
+        return append(type, accountId, counterpartyId, amountCents, creditScore, status, event,
+                Account.DEFAULT_CURRENCY);
+    }
+
+    public synchronized long append(JournalRecordType type, long accountId, long counterpartyId, long amountCents,
+                                    int creditScore, Status status, StatusEvent event, Currency currency) {
+        if (type == JournalRecordType.END_OF_DAY) throw new IllegalArgumentException("use recordEndOfDay");
+        int currencyCode = JournalRecord.currencyCode(currency);
+        int offset = nextSlot();
+        JournalRecord.write(region, offset, lastSequence, lastTimestamp, accountId, counterpartyId, amountCents,
+                creditScore, type, status, event, currencyCode);
+        return written();
+    }
+
+    // Numbers the next record and returns the offset of its slot in the region; the caller holds this
+    private int nextSlot() {
+        if (closed) throw new IllegalStateException("journal is closed");
+        if (writePosition + JournalRecord.SIZE > regionStart + regionBytes) {
+            nextRegion();
+        }
+
+        ++lastSequence;
+        // never let time run backwards inside the file, so it can be searched by time
+        lastTimestamp = Math.max(lastTimestamp, System.currentTimeMillis());
+        return (int) (writePosition - regionStart);
+    }
+
+    // Counts the record just written to the slot and returns its sequence; the caller holds this
+    private long written() {
+        writePosition += JournalRecord.SIZE;
+        long pending = lastSequence - durableSequence;
+        if (pending == 1 || pending == groupSize) {
+            notifyAll();
+        }
+        return lastSequence;
+    }
+
+    // Blocks until every record up to and including the sequence has been forced to disk
+    public synchronized void awaitDurable(long sequence) throws InterruptedException {
+        if (sequence > lastSequence) throw new IllegalArgumentException("sequence " + sequence + " was never appended");
+        // close() forces everything and wakes us, so this cannot hang past close
+        while (durableSequence < sequence) {
+            wait();
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized long getDurableSequence() {
+        return durableSequence;
+    }
+
+    // Number of force() calls so far; far lower than the record count under load
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    private void nextRegion() {
+        // records in the old region have to reach disk before the flusher forgets about it
+        region.force();
+        regionStart += regionBytes;
+        try {
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer toForce;
+            long upTo;
+            synchronized (this) {
+                try {
+                    while (!closed && lastSequence == durableSequence) {
+                        wait();
+                    }
+                    // linger briefly so one force() covers a whole group
+                    long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                    while (!closed && lastSequence - durableSequence < groupSize) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) break;
+                        wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (lastSequence == durableSequence) {
+                    if (closed) return;
+                    continue;
+                }
+                toForce = region;
+                upTo = lastSequence;
+            }
+
+            toForce.force();
+
+            synchronized (this) {
+                flushCount++;
+                if (upTo > durableSequence) {
+                    durableSequence = upTo;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            region.force();
+            durableSequence = lastSequence;
+            notifyAll();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,174 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Journal: deposits, withdrawals, transfers and status changes are recorded in order")
+    public void recordsEveryMutation() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            journal.attach(source);
+            journal.attach(target);
+            TransactionProcessor processor = new TransactionProcessor(journal);
+
+            assertTrue(source.deposit(25.50));
+            assertTrue(source.withdraw(5));
+            assertTrue(processor.processTransfer(source, target, 20));
+            assertTrue(source.violation());
+            source.setCreditScore(650);
+            assertFalse(source.withdraw(1), "rejected operations are not journaled");
+        }
+
+        List<JournalRecordType> types = new ArrayList<>();
+        List<Long> amounts = new ArrayList<>();
+        JournalRecord record = new JournalRecord();
+        try (JournalReader reader = new JournalReader(file)) {
+            long expectedSequence = 1;
+            while (reader.next(record)) {
+                assertEquals(expectedSequence++, record.getSequence());
+                types.add(record.getType());
+                amounts.add(record.getAmountCents());
+            }
+        }
+
+        assertEquals(List.of(JournalRecordType.OPEN, JournalRecordType.OPEN,
+                JournalRecordType.DEPOSIT, JournalRecordType.WITHDRAWAL,
+                JournalRecordType.WITHDRAWAL, JournalRecordType.DEPOSIT, JournalRecordType.TRANSFER,
+                JournalRecordType.STATUS, JournalRecordType.CREDIT_SCORE), types);
+        assertEquals(List.of(10_000L, 0L, 2_550L, 500L, 2_000L, 2_000L, 2_000L, 0L, 0L), amounts);
+    }
+
+    @Test
+    @DisplayName("Journal: an account attached before its traffic replays to its live balance")
+    public void attachBeforeTraffic() throws Exception {
+        Path file = dir.resolve("attach.bin");
+        Account account = new Account(7L, 100, Status.VERIFIED, 700);
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            journal.attach(account);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                boolean deposits = t % 2 == 0;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        if (deposits) account.depositCents(3);
+                        else account.withdrawCents(2);
+                    }
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+        }
+
+        long replayed = 0;
+        try (JournalReader reader = new JournalReader(file)) {
+            JournalRecord record = new JournalRecord();
+            while (reader.next(record)) {
+                if (record.getType() == JournalRecordType.OPEN) {
+                    replayed = record.getAmountCents();
+                } else if (record.getType() == JournalRecordType.DEPOSIT) {
+                    replayed += record.getAmountCents();
+                } else if (record.getType() == JournalRecordType.WITHDRAWAL) {
+                    replayed -= record.getAmountCents();
+                }
+            }
+        }
+        assertEquals(10_000 + 2 * 2_000 * 3 - 2 * 2_000 * 2, account.getBalanceCents());
+        assertEquals(account.getBalanceCents(), replayed);
+    }
+
+    @Test
+    @DisplayName("Journal: status records carry the FSM event and the new status")
+    public void statusRecordsCarryEvent() throws Exception {
+        Path file = dir.resolve("status.bin");
+        Account account = new Account(0, Status.UNVERIFIED);
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            journal.attach(account);
+            account.verify();
+        }
+
+        JournalRecord record = new JournalRecord();
+        try (JournalReader reader = new JournalReader(file)) {
+            assertTrue(reader.next(record));
+            assertEquals(Status.UNVERIFIED, record.getStatus());
+            assertTrue(reader.next(record));
+            assertEquals(JournalRecordType.STATUS, record.getType());
+            assertEquals(StatusEvent.VERIFY, record.getEvent());
+            assertEquals(Status.VERIFIED, record.getStatus());
+            assertEquals(account.getId(), record.getAccountId());
+            assertFalse(reader.next(record));
+        }
+    }
+
+    @Test
+    @DisplayName("Journal: reopening continues after the last record and across regions")
+    public void reopenContinuesSequence() throws Exception {
+        Path file = dir.resolve("reopen.bin");
+        int smallRegion = 16 * JournalRecord.SIZE;
+        Account account = new Account(0, Status.VERIFIED);
+
+        try (TransactionJournal journal = new TransactionJournal(file, smallRegion, 1, 8)) {
+            journal.attach(account);
+            for (int i = 0; i < 40; i++) {
+                account.deposit(1);
+            }
+            journal.detach(account);
+        }
+        try (TransactionJournal journal = new TransactionJournal(file, smallRegion, 1, 8)) {
+            assertEquals(41, journal.getLastSequence());
+            journal.attach(account);
+            account.deposit(1);
+            assertEquals(43, journal.getLastSequence());
+        }
+
+        assertEquals(43, countRecords(file));
+    }
+
+    @Test
+    @DisplayName("Journal: group commit needs far fewer flushes than records")
+    public void groupCommitBatchesFlushes() throws Exception {
+        Path file = dir.resolve("group.bin");
+        Account account = new Account(0, Status.VERIFIED);
+        int records = 10_000;
+
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            journal.attach(account);
+            for (int i = 0; i < records; i++) {
+                account.deposit(0.01);
+            }
+            long last = journal.getLastSequence();
+            journal.awaitDurable(last);
+
+            assertTrue(journal.getDurableSequence() >= last);
+            assertTrue(journal.getFlushCount() < records / 2,
+                    "expected grouped flushes but saw " + journal.getFlushCount());
+        }
+    }
+
+    private static long countRecords(Path file) throws IOException {
+        long count = 0;
+        JournalRecord record = new JournalRecord();
+        try (JournalReader reader = new JournalReader(file)) {
+            while (reader.next(record)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
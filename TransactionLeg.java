@@ -0,0 +1,43 @@
+// TransactionLeg.java
+// One account's part of a multi-leg transaction handed to TransactionProcessor.processTransaction:
+// a debit takes money out of the account, a credit puts money in
+public final class TransactionLeg {
+
+    private final Account account;
+    private final long amountCents;
+    private final boolean debit;
+
+    private TransactionLeg(Account account, long amountCents, boolean debit) {
+        this.account = account;
+        this.amountCents = amountCents;
+        this.debit = debit;
+    }
+
+    public static TransactionLeg debit(Account account, double amount) {
+        return debitCents(account, Account.toCents(amount));
+    }
+
+    public static TransactionLeg credit(Account account, double amount) {
+        return creditCents(account, Account.toCents(amount));
+    }
+
+    public static TransactionLeg debitCents(Account account, long amountCents) {
+        return new TransactionLeg(account, amountCents, true);
+    }
+
+    public static TransactionLeg creditCents(Account account, long amountCents) {
+        return new TransactionLeg(account, amountCents, false);
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public boolean isDebit() {
+        return debit;
+    }
+}
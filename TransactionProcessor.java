@@ -1,22 +1,567 @@
 // TransactionProcessor.java
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
 public class TransactionProcessor {
-    
+
+    // only taken when two distinct accounts compare equal in the lock order
+    private static final Object TIE_LOCK = new Object();
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+
+    private static final Comparator<TransactionLeg> LEG_LOCK_ORDER =
+            (a, b) -> compareLockOrder(a.getAccount(), b.getAccount());
+
+    private final TransactionJournal journal;
+    // null runs submitted transfers on the calling thread
+    private final Executor executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    // successful transfers are offered here for scoring; null means no fraud scoring
+    private volatile FraudPipeline fraudPipeline;
+    // converts cross-currency transfers; null means accounts must share a currency
+    private volatile FxRateTable fxRates;
+    // the legs of each transfer commit together here; null commits every leg on its own
+    private volatile BalanceVersions balanceVersions;
+
+    public TransactionProcessor() {
+        this(null);
+    }
+
+    // Successful transfers also get a TRANSFER record in the journal, if one is given
+    public TransactionProcessor(TransactionJournal journal) {
+        this(journal, null, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    // Submitted transfers run on the executor; at most maxInFlight of them are queued or running at once
+    public TransactionProcessor(TransactionJournal journal, Executor executor, int maxInFlight) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be positive");
+        this.journal = journal;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
     public boolean processTransfer(Account source, Account target, double amount) {
-        if (source == null || target == null) return false;
+        return processTransferCents(source, target, Account.toCents(amount));
+    }
+
+    public boolean processTransferCents(Account source, Account target, long cents) {
+        return submitTransferCents(source, target, cents).join().isSuccess();
+    }
+
+    /**
+     * Starts a transfer and returns its future without waiting for it. When the processor has an
+     * executor and maxInFlight transfers are already pending, the caller waits for one of them to
+     * finish, so a burst of submissions cannot queue without bound. Without an executor the
+     * transfer runs on the calling thread and the returned future is already complete.
+     * Do not call the synchronous methods from the executor's own threads: they wait on this future.
+     */
+    public CompletableFuture<TransferResult> submitTransfer(Account source, Account target, double amount) {
+        return submitTransferCents(source, target, Account.toCents(amount));
+    }
+
+    public CompletableFuture<TransferResult> submitTransferCents(Account source, Account target, long cents) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(transfer(source, target, cents));
+        }
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<TransferResult> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                TransferResult outcome;
+                try {
+                    outcome = transfer(source, target, cents);
+                } catch (Throwable t) {
+                    inFlight.release();
+                    result.completeExceptionally(t);
+                    return;
+                }
+                // release first: dependent stages run inside complete() and may submit more transfers
+                inFlight.release();
+                result.complete(outcome);
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    // Sends every successful transfer to the pipeline for asynchronous scoring; null turns it off
+    public void setFraudPipeline(FraudPipeline fraudPipeline) {
+        this.fraudPipeline = fraudPipeline;
+    }
+
+    // Rates for transfers between accounts of different currencies; null refuses them
+    public void setFxRates(FxRateTable fxRates) {
+        this.fxRates = fxRates;
+    }
+
+    // Makes each transfer, batch and multi-leg transaction one commit of these balance versions,
+    // so a snapshot sees all of its legs or none; null turns it off
+    public void setBalanceVersions(BalanceVersions balanceVersions) {
+        this.balanceVersions = balanceVersions;
+    }
+
+    // Submitted transfers that have not finished yet
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    // Transfers on the calling thread and says which check turned the transfer down: the source's
+    // withdrawal check, or the target's deposit check if the source was fine. Allocates nothing.
+    public OperationResult tryTransferCents(Account source, Account target, long cents) {
+        if (source == null || target == null) return OperationResult.MISSING_ACCOUNT;
+        BankingMetrics metrics = BankingMetrics.installed();
+        if (metrics == null) return scored(source, target, cents, lockAndTransfer(source, target, cents));
+
+        Status before = source.getStatus();
+        long started = metrics.startTimer();
+        OperationResult result = lockAndTransfer(source, target, cents);
+        metrics.record(BankingMetrics.Operation.TRANSFER, before, result, started);
+        return scored(source, target, cents, result);
+    }
 
-        boolean withdrawSuccess = source.withdraw(amount);
-        
-        if (withdrawSuccess) {
-            boolean depositSuccess = target.deposit(amount);
-            
-            if (!depositSuccess) {
+    // hands a successful transfer to the fraud pipeline after the locks are released
+    private OperationResult scored(Account source, Account target, long cents, OperationResult result) {
+        FraudPipeline pipeline = fraudPipeline;
+        if (pipeline != null && result == OperationResult.OK) pipeline.offer(source, target, cents);
+        return result;
+    }
 
-                source.deposit(amount); 
-                return false; 
+    private TransferResult transfer(Account source, Account target, long cents) {
+        return new TransferResult(source, target, cents, tryTransferCents(source, target, cents));
+    }
+
+    private OperationResult lockAndTransfer(Account source, Account target, long cents) {
+        // the amount the target receives, in its own currency; the rate is read once, before any lock
+        long credit = cents;
+        if (source.getCurrency() != target.getCurrency() && cents > 0) {
+            FxRateTable rates = fxRates;
+            if (rates == null) return OperationResult.NO_EXCHANGE_RATE;
+            try {
+                credit = rates.current().convert(cents, source.getCurrency(), target.getCurrency());
+            } catch (ArithmeticException e) {
+                return OperationResult.LIMIT_EXCEEDED;
             }
-            return true; 
+            if (credit == FxRateTable.NO_RATE) return OperationResult.NO_EXCHANGE_RATE;
+        }
+
+        if (source == target) {
+            source.lock().lock();
+            try {
+                return lockedTransfer(source, target, cents, credit);
+            } finally {
+                source.lock().unlock();
+            }
+        }
+
+        // lock both accounts in a global order so A->B and B->A cannot deadlock
+        int order = compareLockOrder(source, target);
+        if (order == 0) {
+            synchronized (TIE_LOCK) {
+                return lockBothAndTransfer(source, target, source, target, cents, credit);
+            }
+        }
+        Account first = order < 0 ? source : target;
+        Account second = order < 0 ? target : source;
+        return lockBothAndTransfer(first, second, source, target, cents, credit);
+    }
+
+    private OperationResult lockBothAndTransfer(Account first, Account second, Account source, Account target,
+                                                long cents, long credit) {
+        first.lock().lock();
+        try {
+            second.lock().lock();
+            try {
+                return lockedTransfer(source, target, cents, credit);
+            } finally {
+                second.lock().unlock();
+            }
+        } finally {
+            first.lock().unlock();
+        }
+    }
+
+    // caller holds the locks of both accounts, so neither status nor credit score can change underneath;
+    // credit is what the target receives in its own currency, equal to cents when the currencies match
+    private OperationResult lockedTransfer(Account source, Account target, long cents, long credit) {
+        BalanceVersions versions = balanceVersions;
+        if (versions == null) return applyTransfer(source, target, cents, credit);
+        versions.begin();
+        try {
+            return applyTransfer(source, target, cents, credit);
+        } finally {
+            versions.end();
         }
-        
-        return false; 
     }
-}
\ No newline at end of file
+
+    private OperationResult applyTransfer(Account source, Account target, long cents, long credit) {
+        OperationResult withdrawal = source.applyWithdraw(cents);
+
+        if (withdrawal == OperationResult.OK) {
+            OperationResult deposit = target.applyDeposit(credit);
+
+            if (deposit != OperationResult.OK) {
+                // the refund skips the deposit checks, so a blocked source still gets its money back
+                source.refundCents(cents);
+                return deposit;
+            }
+            if (journal != null) journal.recordTransfer(source, target, cents);
+        }
+
+        return withdrawal;
+    }
+
+    /**
+     * Applies a whole batch of transfers with one lock acquisition per distinct account.
+     * Status and credit checks run once per account rather than once per row, and rows are
+     * applied in list order, so a row can spend money credited by an earlier row.
+     * Rows between accounts of different currencies are refused.
+     * Returns one entry per instruction, true where that transfer was applied.
+     */
+    public boolean[] processBatch(List<TransferInstruction> instructions) {
+        boolean[] results = new boolean[instructions.size()];
+        if (instructions.isEmpty()) return results;
+
+        Map<Account, Integer> slots = new IdentityHashMap<>();
+        List<Account> accounts = new ArrayList<>();
+        for (TransferInstruction instruction : instructions) {
+            addAccount(instruction.getSource(), slots, accounts);
+            addAccount(instruction.getTarget(), slots, accounts);
+        }
+
+        Account[] ordered = accounts.toArray(new Account[0]);
+        Arrays.sort(ordered, TransactionProcessor::compareLockOrder);
+        boolean tie = false;
+        for (int i = 1; i < ordered.length; i++) {
+            if (compareLockOrder(ordered[i - 1], ordered[i]) == 0) {
+                tie = true;
+                break;
+            }
+        }
+
+        if (tie) {
+            synchronized (TIE_LOCK) {
+                lockAllAndApply(ordered, instructions, slots, results);
+            }
+        } else {
+            lockAllAndApply(ordered, instructions, slots, results);
+        }
+
+        // applied rows go to the fraud pipeline once the locks are released
+        FraudPipeline pipeline = fraudPipeline;
+        if (pipeline != null) {
+            for (int row = 0; row < results.length; row++) {
+                if (!results[row]) continue;
+                TransferInstruction instruction = instructions.get(row);
+                pipeline.offer(instruction.getSource(), instruction.getTarget(), instruction.getAmountCents());
+            }
+        }
+        return results;
+    }
+
+    private void lockAllAndApply(Account[] ordered, List<TransferInstruction> instructions,
+                                 Map<Account, Integer> slots, boolean[] results) {
+        int locked = 0;
+        try {
+            for (Account account : ordered) {
+                account.lock().lock();
+                locked++;
+            }
+            BalanceVersions versions = balanceVersions;
+            if (versions == null) {
+                applyLocked(instructions, slots, results);
+            } else {
+                // the whole batch is one commit
+                versions.begin();
+                try {
+                    applyLocked(instructions, slots, results);
+                } finally {
+                    versions.end();
+                }
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                ordered[i].lock().unlock();
+            }
+        }
+    }
+
+    // every account in the batch is locked, so the per-account checks hold for the whole batch
+    // unless a velocity breach changes the source's status
+    private void applyLocked(List<TransferInstruction> instructions, Map<Account, Integer> slots, boolean[] results) {
+        int size = slots.size();
+        boolean[] canWithdraw = new boolean[size];
+        boolean[] canDeposit = new boolean[size];
+        for (Map.Entry<Account, Integer> entry : slots.entrySet()) {
+            canWithdraw[entry.getValue()] = entry.getKey().canWithdraw();
+            canDeposit[entry.getValue()] = entry.getKey().canDeposit();
+        }
+
+        for (int row = 0; row < results.length; row++) {
+            TransferInstruction instruction = instructions.get(row);
+            Account source = instruction.getSource();
+            Account target = instruction.getTarget();
+            long cents = instruction.getAmountCents();
+            if (source == null || target == null || cents <= 0) continue;
+            // batches move money one to one, so both sides must share a currency
+            if (source.getCurrency() != target.getCurrency()) continue;
+            if (!canWithdraw[slots.get(source)] || !canDeposit[slots.get(target)]) continue;
+
+            OperationResult debit = source.debitWithinLimits(cents);
+            if (debit == OperationResult.OK) {
+                target.creditCents(cents);
+                if (journal != null) journal.recordTransfer(source, target, cents);
+                results[row] = true;
+            } else if (debit == OperationResult.VELOCITY_LIMIT) {
+                // a breach may have suspended the source, so its checks no longer hold for later rows
+                int slot = slots.get(source);
+                canWithdraw[slot] = source.canWithdraw();
+                canDeposit[slot] = source.canDeposit();
+            }
+        }
+    }
+
+    public OperationResult processTransaction(TransactionLeg... legs) {
+        return processTransaction(Arrays.asList(legs));
+    }
+
+    /**
+     * Applies every leg of a multi-leg transaction (a split payment, a payroll run) or none of them.
+     * The legs must share one currency and their debits and credits must net to zero. Each distinct
+     * account is locked once, in the global lock order, and every check runs before any money
+     * moves. Debits are taken before credits are paid; if a debit still fails, e.g. because an
+     * unlocked withdrawal drained the balance meanwhile, the debits already taken are refunded,
+     * which skips the checks and cannot fail. One debit plus one credit is an ordinary transfer
+     * and takes the two-lock path. Like a transfer, the transaction is counted in BankingMetrics as
+     * a TRANSFER, gets one TRANSFER record in the journal, from its largest payer to its largest
+     * payee for the total moved, and once the locks are released is offered to the fraud pipeline
+     * as debit-to-credit pairs that add up to each account's net change.
+     * Legs that net to zero on every account move no money and return OK at once, with no lock,
+     * record or metrics sample.
+     * Returns OK or the reason the transaction was refused.
+     */
+    public OperationResult processTransaction(List<TransactionLeg> legs) {
+        Currency currency = null;
+        long net = 0;
+        for (TransactionLeg leg : legs) {
+            if (leg == null || leg.getAccount() == null) return OperationResult.MISSING_ACCOUNT;
+            if (leg.getAmountCents() <= 0) return OperationResult.NON_POSITIVE;
+            Currency legCurrency = leg.getAccount().getCurrency();
+            if (currency == null) {
+                currency = legCurrency;
+            } else if (legCurrency != currency) {
+                return OperationResult.NO_EXCHANGE_RATE;
+            }
+            // legs too large to add up cannot balance either
+            long signed = leg.isDebit() ? -leg.getAmountCents() : leg.getAmountCents();
+            if ((net > 0 && signed > Long.MAX_VALUE - net) || (net < 0 && signed < Long.MIN_VALUE - net)) {
+                return OperationResult.LIMIT_EXCEEDED;
+            }
+            net += signed;
+        }
+        if (net != 0) return OperationResult.UNBALANCED;
+        if (legs.isEmpty()) return OperationResult.OK;
+
+        if (legs.size() == 2 && legs.get(0).isDebit() != legs.get(1).isDebit()) {
+            TransactionLeg debit = legs.get(0).isDebit() ? legs.get(0) : legs.get(1);
+            TransactionLeg credit = debit == legs.get(0) ? legs.get(1) : legs.get(0);
+            return tryTransferCents(debit.getAccount(), credit.getAccount(), debit.getAmountCents());
+        }
+
+        // one net change per distinct account, so an account with several legs is locked and checked once;
+        // sorting by lock order puts an account's legs next to each other
+        TransactionLeg[] sorted = legs.toArray(new TransactionLeg[0]);
+        Arrays.sort(sorted, LEG_LOCK_ORDER);
+        Account[] ordered = new Account[sorted.length];
+        long[] deltas = new long[sorted.length];
+        int distinct = 0;
+        int runStart = 0;
+        boolean tie = false;
+        try {
+            for (TransactionLeg leg : sorted) {
+                Account account = leg.getAccount();
+                long signed = leg.isDebit() ? -leg.getAmountCents() : leg.getAmountCents();
+                if (distinct > 0 && compareLockOrder(ordered[distinct - 1], account) == 0) {
+                    // the same account, or very rarely another one that ties with it in the lock order
+                    int k = runStart;
+                    while (k < distinct && ordered[k] != account) k++;
+                    if (k < distinct) {
+                        deltas[k] = Math.addExact(deltas[k], signed);
+                        continue;
+                    }
+                    tie = true;
+                } else {
+                    runStart = distinct;
+                }
+                ordered[distinct] = account;
+                deltas[distinct++] = signed;
+            }
+        } catch (ArithmeticException e) {
+            return OperationResult.LIMIT_EXCEEDED;
+        }
+        // legs that leave every account where it was move no money, so there is nothing to lock or record
+        boolean moves = false;
+        for (int i = 0; i < distinct && !moves; i++) {
+            moves = deltas[i] != 0;
+        }
+        if (!moves) return OperationResult.OK;
+
+        BankingMetrics metrics = BankingMetrics.installed();
+        Status before = null;
+        long started = 0;
+        if (metrics != null) {
+            int payer = 0;
+            while (payer < distinct - 1 && deltas[payer] >= 0) payer++;
+            before = ordered[payer].getStatus();
+            started = metrics.startTimer();
+        }
+
+        OperationResult result;
+        if (tie) {
+            synchronized (TIE_LOCK) {
+                result = lockAllAndApplyLegs(ordered, deltas, distinct);
+            }
+        } else {
+            result = lockAllAndApplyLegs(ordered, deltas, distinct);
+        }
+
+        if (metrics != null) metrics.record(BankingMetrics.Operation.TRANSFER, before, result, started);
+        FraudPipeline pipeline = fraudPipeline;
+        if (pipeline != null && result == OperationResult.OK) offerLegs(pipeline, ordered, deltas, distinct);
+        return result;
+    }
+
+    private OperationResult lockAllAndApplyLegs(Account[] ordered, long[] deltas, int count) {
+        int locked = 0;
+        try {
+            for (; locked < count; locked++) {
+                ordered[locked].lock().lock();
+            }
+            BalanceVersions versions = balanceVersions;
+            OperationResult result;
+            if (versions == null) {
+                result = applyLegsLocked(ordered, deltas, count);
+            } else {
+                versions.begin();
+                try {
+                    result = applyLegsLocked(ordered, deltas, count);
+                } finally {
+                    versions.end();
+                }
+            }
+            if (journal != null && result == OperationResult.OK) recordLegs(ordered, deltas, count);
+            return result;
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                ordered[i].lock().unlock();
+            }
+        }
+    }
+
+    // every account is locked, so no status or credit score changes between the checks and the moves
+    private static OperationResult applyLegsLocked(Account[] accounts, long[] deltas, int count) {
+        for (int i = 0; i < count; i++) {
+            Account account = accounts[i];
+            long delta = deltas[i];
+            if (delta < 0) {
+                OperationResult check = Account.withdrawCheck(account.getStatus(), account.getCreditScore());
+                if (check != OperationResult.OK) return check;
+                if (-delta > account.getBalanceCents()) return OperationResult.INSUFFICIENT_FUNDS;
+            } else if (delta > 0) {
+                OperationResult check = Account.depositCheck(account.getStatus(), account.getCreditScore());
+                if (check != OperationResult.OK) return check;
+                if (account.getBalanceCents() > Long.MAX_VALUE - delta) return OperationResult.LIMIT_EXCEEDED;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (deltas[i] >= 0) continue;
+            OperationResult debit = accounts[i].debitWithinLimits(-deltas[i]);
+            if (debit != OperationResult.OK) {
+                for (int j = 0; j < i; j++) {
+                    if (deltas[j] < 0) accounts[j].refundCents(-deltas[j]);
+                }
+                return debit;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (deltas[i] > 0) accounts[i].creditCents(deltas[i]);
+        }
+        return OperationResult.OK;
+    }
+
+    // one TRANSFER record for the whole transaction, written while its accounts are still locked
+    private void recordLegs(Account[] accounts, long[] deltas, int count) {
+        int payer = -1;
+        int payee = -1;
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (deltas[i] < 0) {
+                // the debits of several full accounts can add up past a long
+                total = total > Long.MAX_VALUE + deltas[i] ? Long.MAX_VALUE : total - deltas[i];
+                if (payer < 0 || deltas[i] < deltas[payer]) payer = i;
+            } else if (deltas[i] > 0 && (payee < 0 || deltas[i] > deltas[payee])) {
+                payee = i;
+            }
+        }
+        if (payer < 0 || payee < 0) return;
+        journal.recordTransfer(accounts[payer], accounts[payee], total);
+    }
+
+    // Pairs debits with credits in lock order, so the pairs of an account add up to its net change,
+    // and offers each pair as a transfer
+    private static void offerLegs(FraudPipeline pipeline, Account[] accounts, long[] deltas, int count) {
+        int payer = 0;
+        int payee = 0;
+        long owed = 0;
+        long due = 0;
+        while (true) {
+            while (owed == 0 && payer < count) {
+                if (deltas[payer] < 0) owed = -deltas[payer];
+                else payer++;
+            }
+            while (due == 0 && payee < count) {
+                if (deltas[payee] > 0) due = deltas[payee];
+                else payee++;
+            }
+            if (owed == 0 || due == 0) return;
+
+            long cents = Math.min(owed, due);
+            pipeline.offer(accounts[payer], accounts[payee], cents);
+            owed -= cents;
+            due -= cents;
+            if (owed == 0) payer++;
+            if (due == 0) payee++;
+        }
+    }
+
+    private static void addAccount(Account account, Map<Account, Integer> slots, List<Account> accounts) {
+        if (account != null && slots.putIfAbsent(account, accounts.size()) == null) {
+            accounts.add(account);
+        }
+    }
+
+    static int compareLockOrder(Account a, Account b) {
+        int order = Long.compare(a.getId(), b.getId());
+        if (order != 0) return order;
+        return Integer.compare(System.identityHashCode(a), System.identityHashCode(b));
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionProcessorAsyncTest {
+
+    @Test
+    @DisplayName("Async: without an executor the future is already complete")
+    public void inlineSubmitCompletesImmediately() {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+
+        CompletableFuture<TransferResult> future = processor.submitTransfer(source, target, 40);
+        assertTrue(future.isDone());
+        TransferResult result = future.join();
+        assertTrue(result.isSuccess());
+        assertEquals(4_000, result.getAmountCents());
+        assertSame(source, result.getSource());
+        assertEquals(60, source.getBalance(), 0.001);
+        assertEquals(40, target.getBalance(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Async: payroll fan-out composes into one total")
+    public void payrollFanOut() {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            TransactionProcessor processor = new TransactionProcessor(null, pool, 8);
+            Account employer = new Account(10_000, Status.VERIFIED);
+            List<Account> employees = new ArrayList<>();
+            List<CompletableFuture<TransferResult>> payments = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Account employee = new Account(0, Status.VERIFIED);
+                employees.add(employee);
+                payments.add(processor.submitTransfer(employer, employee, 150));
+            }
+
+            long paid = CompletableFuture.allOf(payments.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(done -> payments.stream()
+                            .map(CompletableFuture::join)
+                            .filter(TransferResult::isSuccess)
+                            .mapToLong(TransferResult::getAmountCents)
+                            .sum())
+                    .join();
+
+            assertEquals(750_000, paid);
+            assertEquals(2_500, employer.getBalance(), 0.001);
+            for (Account employee : employees) {
+                assertEquals(150, employee.getBalance(), 0.001);
+            }
+            assertEquals(0, processor.getInFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Async: a full in-flight window makes the submitter wait")
+    public void backpressureBlocksSubmitter() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        ExecutorService pool = Executors.newCachedThreadPool();
+        ExecutorService submitter = Executors.newSingleThreadExecutor();
+        try {
+            // every transfer waits on the gate, so the window fills up
+            TransactionProcessor processor = new TransactionProcessor(null, task -> pool.execute(() -> {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                task.run();
+            }), 2);
+            Account source = new Account(100, Status.VERIFIED);
+            Account target = new Account(0, Status.VERIFIED);
+
+            CompletableFuture<TransferResult> first = processor.submitTransfer(source, target, 1);
+            CompletableFuture<TransferResult> second = processor.submitTransfer(source, target, 1);
+            assertEquals(2, processor.getInFlight());
+
+            CompletableFuture<CompletableFuture<TransferResult>> third = CompletableFuture.supplyAsync(
+                    () -> processor.submitTransfer(source, target, 1), submitter);
+            Thread.sleep(100);
+            assertFalse(third.isDone(), "The third submit must wait for a free slot");
+
+            gate.countDown();
+            assertTrue(third.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS).isSuccess());
+            // the third can finish before the first two, so wait for those as well
+            assertTrue(first.get(5, TimeUnit.SECONDS).isSuccess());
+            assertTrue(second.get(5, TimeUnit.SECONDS).isSuccess());
+            assertEquals(97, source.getBalance(), 0.001);
+        } finally {
+            gate.countDown();
+            pool.shutdownNow();
+            submitter.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Async: a rejecting executor fails the future and frees the slot")
+    public void rejectedSubmitFailsFuture() {
+        TransactionProcessor processor = new TransactionProcessor(null, task -> {
+            throw new RejectedExecutionException("shut down");
+        }, 1);
+        Account source = new Account(100, Status.VERIFIED);
+        Account target = new Account(0, Status.VERIFIED);
+
+        CompletableFuture<TransferResult> future = processor.submitTransfer(source, target, 10);
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(0, processor.getInFlight());
+        assertEquals(100, source.getBalance(), 0.001);
+    }
+}
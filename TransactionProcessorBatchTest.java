@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionProcessorBatchTest {
+
+    private TransactionProcessor processor;
+    private Account alice;
+    private Account bob;
+    private Account carol;
+
+    @BeforeEach
+    public void setup() {
+        processor = new TransactionProcessor();
+        alice = new Account(100, Status.VERIFIED);
+        bob = new Account(50, Status.VERIFIED);
+        carol = new Account(0, Status.VERIFIED);
+    }
+
+    @Test
+    @DisplayName("Batch: every valid row is applied in order")
+    public void appliesRowsInOrder() {
+        boolean[] results = processor.processBatch(Arrays.asList(
+                new TransferInstruction(alice, bob, 100),
+                new TransferInstruction(bob, carol, 150),
+                new TransferInstruction(carol, alice, 25)));
+
+        assertArrayEquals(new boolean[] {true, true, true}, results);
+        assertEquals(25, alice.getBalance(), 0.0001);
+        assertEquals(0, bob.getBalance(), 0.0001);
+        assertEquals(125, carol.getBalance(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("Batch: rejected rows leave balances untouched")
+    public void rejectedRowsAreSkipped() {
+        Account suspended = new Account(100, Status.SUSPENDED);
+        Account closed = new Account(100, Status.CLOSED);
+        Account lowScore = new Account(100, Status.VERIFIED, 500);
+
+        boolean[] results = processor.processBatch(Arrays.asList(
+                new TransferInstruction(suspended, bob, 10),
+                new TransferInstruction(alice, closed, 10),
+                new TransferInstruction(lowScore, bob, 10),
+                new TransferInstruction(alice, bob, 1000),
+                new TransferInstruction(alice, bob, -5),
+                new TransferInstruction(null, bob, 10),
+                new TransferInstruction(alice, bob, 10)));
+
+        assertArrayEquals(new boolean[] {false, false, false, false, false, false, true}, results);
+        assertEquals(90, alice.getBalance(), 0.0001);
+        assertEquals(60, bob.getBalance(), 0.0001);
+        assertEquals(100, suspended.getBalance(), 0.0001);
+        assertEquals(100, closed.getBalance(), 0.0001);
+        assertEquals(100, lowScore.getBalance(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("Batch: results match the one-by-one transfer loop")
+    public void matchesSequentialTransfers() {
+        Account[] batchAccounts = new Account[20];
+        Account[] loopAccounts = new Account[20];
+        for (int i = 0; i < batchAccounts.length; i++) {
+            batchAccounts[i] = new Account(100, Status.VERIFIED);
+            loopAccounts[i] = new Account(100, Status.VERIFIED);
+        }
+
+        List<TransferInstruction> batch = new ArrayList<>();
+        List<int[]> rows = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(20);
+            int to = random.nextInt(20);
+            int cents = random.nextInt(1, 8000);
+            batch.add(TransferInstruction.ofCents(batchAccounts[from], batchAccounts[to], cents));
+            rows.add(new int[] {from, to, cents});
+        }
+
+        boolean[] results = processor.processBatch(batch);
+
+        for (int i = 0; i < rows.size(); i++) {
+            int[] row = rows.get(i);
+            assertEquals(processor.processTransfer(loopAccounts[row[0]], loopAccounts[row[1]], row[2] / 100.0),
+                    results[i], "row " + i);
+        }
+        for (int i = 0; i < batchAccounts.length; i++) {
+            assertEquals(loopAccounts[i].getBalanceCents(), batchAccounts[i].getBalanceCents());
+        }
+    }
+
+    @Test
+    @DisplayName("Batch: empty batch returns an empty result")
+    public void emptyBatch() {
+        assertEquals(0, processor.processBatch(Collections.emptyList()).length);
+    }
+}
@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionProcessorConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 20_000;
+
+    @Test
+    @DisplayName("Stress: random concurrent transfers conserve the total money")
+    public void concurrentTransfersConserveMoney() throws Exception {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account[] accounts = new Account[10];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new Account(1000, Status.VERIFIED);
+        }
+        long totalBefore = total(accounts);
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                Account source = accounts[random.nextInt(accounts.length)];
+                Account target = accounts[random.nextInt(accounts.length)];
+                processor.processTransfer(source, target, random.nextInt(1, 5000) / 100.0);
+            }
+        });
+
+        assertEquals(totalBefore, total(accounts), "Transfers must not create or destroy money");
+        for (Account account : accounts) {
+            assertTrue(account.getBalanceCents() >= 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Stress: opposite transfers between two accounts do not deadlock")
+    public void oppositeTransfersDoNotDeadlock() throws Exception {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account a = new Account(500, Status.VERIFIED);
+        Account b = new Account(500, Status.VERIFIED);
+
+        runConcurrently(() -> {
+            boolean forward = ThreadLocalRandom.current().nextBoolean();
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                if (forward) {
+                    processor.processTransfer(a, b, 1);
+                } else {
+                    processor.processTransfer(b, a, 1);
+                }
+            }
+        });
+
+        assertEquals(100_000, a.getBalanceCents() + b.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Stress: transfers racing with status changes conserve the total money")
+    public void transfersRacingStatusChangesConserveMoney() throws Exception {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account source = new Account(1000, Status.VERIFIED);
+        Account target = new Account(1000, Status.VERIFIED);
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                if (random.nextInt(10) == 0) {
+                    target.setStatus(random.nextBoolean() ? Status.CLOSED : Status.VERIFIED);
+                    source.setCreditScore(random.nextBoolean() ? 500 : 700);
+                } else if (random.nextBoolean()) {
+                    processor.processTransfer(source, target, 1);
+                } else {
+                    processor.processTransfer(target, source, 1);
+                }
+            }
+        });
+
+        assertEquals(200_000, source.getBalanceCents() + target.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Failed deposit leg restores the source balance")
+    public void failedDepositLegRestoresSource() {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account source = new Account(200, Status.VERIFIED);
+        Account target = new Account(100, Status.CLOSED);
+
+        assertFalse(processor.processTransfer(source, target, 50));
+        assertEquals(200, source.getBalance(), 0.0001);
+        assertEquals(100, target.getBalance(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("Transfer to the same account leaves the balance unchanged")
+    public void selfTransfer() {
+        TransactionProcessor processor = new TransactionProcessor();
+        Account account = new Account(200, Status.VERIFIED);
+
+        assertTrue(processor.processTransfer(account, account, 50));
+        assertEquals(200, account.getBalance(), 0.0001);
+    }
+
+    private static long total(Account[] accounts) {
+        long sum = 0;
+        for (Account account : accounts) {
+            sum += account.getBalanceCents();
+        }
+        return sum;
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionProcessorMultiLegTest {
+
+    @TempDir
+    Path dir;
+
+    private final TransactionProcessor processor = new TransactionProcessor();
+
+    @Test
+    @DisplayName("Multi-leg: a payroll run moves every leg under one lock of the payer")
+    public void payroll() {
+        Account employer = new Account(10_000, Status.VERIFIED, 700);
+        List<TransactionLeg> legs = new ArrayList<>();
+        List<Account> employees = new ArrayList<>();
+        legs.add(TransactionLeg.debit(employer, 3_000));
+        for (int i = 0; i < 30; i++) {
+            Account employee = new Account(0, Status.VERIFIED, 700);
+            employees.add(employee);
+            legs.add(TransactionLeg.credit(employee, 100));
+        }
+
+        assertEquals(OperationResult.OK, processor.processTransaction(legs));
+        assertEquals(7_000, employer.getBalance());
+        for (Account employee : employees) {
+            assertEquals(100, employee.getBalance());
+        }
+    }
+
+    @Test
+    @DisplayName("Multi-leg: metrics, the journal and the fraud pipeline see a transaction like a transfer")
+    public void sameHooksAsTransfers() throws Exception {
+        Account a = new Account(1L, 10, Status.VERIFIED, 700);
+        Account b = new Account(2L, 10, Status.VERIFIED, 700);
+        Account c = new Account(3L, 0, Status.VERIFIED, 700);
+        Account d = new Account(4L, 0, Status.VERIFIED, 700);
+        BankingMetrics metrics = new BankingMetrics(1);
+        FraudPipeline pipeline = new FraudPipeline(64, 2, FraudPipeline.Action.FLAG, null);
+        Path file = dir.resolve("journal.bin");
+
+        BankingMetrics.install(metrics);
+        try (TransactionJournal journal = new TransactionJournal(file); pipeline) {
+            TransactionProcessor journaled = new TransactionProcessor(journal);
+            journaled.setFraudPipeline(pipeline);
+            assertEquals(OperationResult.OK, journaled.processTransaction(TransactionLeg.debitCents(a, 300),
+                    TransactionLeg.debitCents(b, 100), TransactionLeg.creditCents(c, 250),
+                    TransactionLeg.creditCents(d, 150)));
+            assertEquals(OperationResult.INSUFFICIENT_FUNDS, journaled.processTransaction(
+                    TransactionLeg.debitCents(a, 5_000), TransactionLeg.creditCents(c, 2_500),
+                    TransactionLeg.creditCents(d, 2_500)));
+        } finally {
+            BankingMetrics.install(null);
+        }
+
+        assertEquals(1, metrics.count(BankingMetrics.Operation.TRANSFER, OperationResult.OK));
+        assertEquals(1, metrics.count(BankingMetrics.Operation.TRANSFER, OperationResult.INSUFFICIENT_FUNDS));
+        // a pays c 250 and d 50, b pays d 100
+        assertEquals(3, pipeline.getScored());
+
+        List<String> transfers = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(file)) {
+            JournalRecord record = new JournalRecord();
+            while (reader.next(record)) {
+                if (record.getType() == JournalRecordType.TRANSFER) {
+                    transfers.add(record.getAccountId() + "->" + record.getCounterpartyId() + ":" + record.getAmountCents());
+                }
+            }
+        }
+        assertEquals(List.of("1->3:400"), transfers);
+    }
+
+    @Test
+    @DisplayName("Multi-leg: legs that net to zero on every account succeed without moving or recording anything")
+    public void nettingToZero() throws Exception {
+        Account x = new Account(1L, 10, Status.VERIFIED, 700);
+        Account y = new Account(2L, 10, Status.VERIFIED, 700);
+        BankingMetrics metrics = new BankingMetrics(1);
+        Path file = dir.resolve("netting.bin");
+
+        BankingMetrics.install(metrics);
+        try (TransactionJournal journal = new TransactionJournal(file)) {
+            TransactionProcessor journaled = new TransactionProcessor(journal);
+            assertEquals(OperationResult.OK, journaled.processTransaction(TransactionLeg.debitCents(x, 5),
+                    TransactionLeg.creditCents(x, 5), TransactionLeg.debitCents(y, 3), TransactionLeg.creditCents(y, 3)));
+            assertEquals(OperationResult.OK, journaled.processTransaction(TransactionLeg.debitCents(x, 5),
+                    TransactionLeg.creditCents(x, 3), TransactionLeg.creditCents(x, 2)));
+            assertEquals(0, journal.getLastSequence());
+        } finally {
+            BankingMetrics.install(null);
+        }
+
+        assertEquals(0, metrics.count(BankingMetrics.Operation.TRANSFER, OperationResult.OK));
+        assertEquals(1_000, x.getBalanceCents());
+        assertEquals(1_000, y.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Multi-leg: one refused leg leaves every account untouched")
+    public void allOrNothing() {
+        Account a = new Account(100, Status.VERIFIED, 700);
+        Account b = new Account(100, Status.VERIFIED, 700);
+        Account closed = new Account(0, Status.CLOSED, 700);
+        Account poor = new Account(10, Status.VERIFIED, 700);
+
+        assertEquals(OperationResult.CLOSED, processor.processTransaction(TransactionLeg.debit(a, 50),
+                TransactionLeg.credit(b, 25), TransactionLeg.credit(closed, 25)));
+        assertEquals(OperationResult.INSUFFICIENT_FUNDS, processor.processTransaction(TransactionLeg.debit(a, 50),
+                TransactionLeg.debit(poor, 20), TransactionLeg.credit(b, 70)));
+        assertEquals(100, a.getBalance());
+        assertEquals(100, b.getBalance());
+        assertEquals(10, poor.getBalance());
+        assertEquals(0, closed.getBalance());
+    }
+
+    @Test
+    @DisplayName("Multi-leg: a debit refused after the checks rolls back the debits already taken")
+    public void lateDebitFailureRollsBack() {
+        Account a = new Account(1L, 100, Status.VERIFIED, 700);
+        Account b = new Account(2L, 100, Status.VERIFIED, 700);
+        Account c = new Account(3L, 0, Status.VERIFIED, 700);
+        // a limit of one withdrawal per minute passes the checks but refuses b's second debit
+        VelocityLimiter limiter = new VelocityLimiter(8, 1, 100_000_000, false);
+        limiter.attach(b);
+        assertTrue(b.withdrawCents(1));
+
+        assertEquals(OperationResult.VELOCITY_LIMIT, processor.processTransaction(TransactionLeg.debitCents(a, 5_000),
+                TransactionLeg.debitCents(b, 5_000), TransactionLeg.creditCents(c, 10_000)));
+        assertEquals(10_000, a.getBalanceCents());
+        assertEquals(9_999, b.getBalanceCents());
+        assertEquals(0, c.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Multi-leg: legs must balance, share a currency and name real accounts")
+    public void validation() {
+        Account a = new Account(100, Status.VERIFIED, 700);
+        Account b = new Account(100, Status.VERIFIED, 700);
+        Account euros = Account.ofCents(99L, 0, Status.VERIFIED, 700, java.util.Currency.getInstance("EUR"));
+
+        assertEquals(OperationResult.UNBALANCED, processor.processTransaction(TransactionLeg.debit(a, 10), TransactionLeg.credit(b, 9)));
+        assertEquals(OperationResult.NON_POSITIVE, processor.processTransaction(TransactionLeg.debit(a, 0), TransactionLeg.credit(b, 0)));
+        assertEquals(OperationResult.MISSING_ACCOUNT, processor.processTransaction(TransactionLeg.debit(a, 1), TransactionLeg.credit(null, 1)));
+        assertEquals(OperationResult.NO_EXCHANGE_RATE, processor.processTransaction(TransactionLeg.debit(a, 1), TransactionLeg.credit(euros, 1)));
+        assertEquals(OperationResult.LIMIT_EXCEEDED, processor.processTransaction(TransactionLeg.creditCents(a, Long.MAX_VALUE),
+                TransactionLeg.creditCents(b, Long.MAX_VALUE), TransactionLeg.debitCents(a, 2)));
+        assertEquals(OperationResult.OK, processor.processTransaction(List.of()));
+
+        // legs of one account are netted: a pays 10 and gets 4 back
+        assertEquals(OperationResult.OK, processor.processTransaction(TransactionLeg.debit(a, 10),
+                TransactionLeg.credit(a, 4), TransactionLeg.credit(b, 6)));
+        assertEquals(94, a.getBalance());
+        assertEquals(106, b.getBalance());
+    }
+
+    @Test
+    @DisplayName("Stress: overlapping multi-leg transactions conserve money and never deadlock")
+    public void concurrentSplits() throws Exception {
+        int count = 20;
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accounts.add(new Account(1_000, Status.VERIFIED, 700));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int round = 0; round < 2_000; round++) {
+                        List<Account> shuffled = new ArrayList<>(accounts);
+                        Collections.shuffle(shuffled, random);
+                        int legs = 2 + random.nextInt(5);
+                        List<TransactionLeg> transaction = new ArrayList<>();
+                        transaction.add(TransactionLeg.debitCents(shuffled.get(0), (legs - 1) * 100L));
+                        for (int i = 1; i < legs; i++) {
+                            transaction.add(TransactionLeg.creditCents(shuffled.get(i), 100));
+                        }
+                        processor.processTransaction(transaction);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        long total = 0;
+        for (Account account : accounts) {
+            assertTrue(account.getBalanceCents() >= 0);
+            total += account.getBalanceCents();
+        }
+        assertEquals(count * 100_000L, total);
+    }
+}
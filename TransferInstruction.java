@@ -0,0 +1,34 @@
+// TransferInstruction.java
+// One row of a transfer batch handed to TransactionProcessor.processBatch
+public final class TransferInstruction {
+
+    private final Account source;
+    private final Account target;
+    private final long amountCents;
+
+    public TransferInstruction(Account source, Account target, double amount) {
+        this(source, target, Account.toCents(amount));
+    }
+
+    private TransferInstruction(Account source, Account target, long amountCents) {
+        this.source = source;
+        this.target = target;
+        this.amountCents = amountCents;
+    }
+
+    public static TransferInstruction ofCents(Account source, Account target, long amountCents) {
+        return new TransferInstruction(source, target, amountCents);
+    }
+
+    public Account getSource() {
+        return source;
+    }
+
+    public Account getTarget() {
+        return target;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+}
@@ -0,0 +1,41 @@
+// TransferResult.java
+// Outcome of one transfer submitted through TransactionProcessor.submitTransfer
+public final class TransferResult {
+
+    private final Account source;
+    private final Account target;
+    private final long amountCents;
+    private final OperationResult result;
+
+    TransferResult(Account source, Account target, long amountCents, OperationResult result) {
+        this.source = source;
+        this.target = target;
+        this.amountCents = amountCents;
+        this.result = result;
+    }
+
+    public Account getSource() {
+        return source;
+    }
+
+    public Account getTarget() {
+        return target;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public boolean isSuccess() {
+        return result == OperationResult.OK;
+    }
+
+    public OperationResult getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferResult{amountCents=" + amountCents + ", result=" + result + "}";
+    }
+}
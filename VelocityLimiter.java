@@ -0,0 +1,171 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.LongSupplier;
+
+// VelocityLimiter.java
+// Per-account sliding-window limits on withdrawals: how many may be made per minute and how much
+// money may leave per day. Attached accounts check it inside applyWithdraw, so plain withdrawals,
+// ClientController calls and the source leg of every transfer are all limited.
+//
+// Each window is a small ring of time buckets per account, stored in one flat long[] indexed by
+// account id * buckets. A slot packs the bucket's epoch (its start time / bucket length, low 24
+// bits) above a 40-bit total, so a stale bucket is recognised and reused without a separate clear
+// pass and without a timestamp per withdrawal. Checking a limit sums the account's few buckets and
+// adds to the current one with a CAS, which is O(1) in time and memory per account: with the default
+// 4 buckets per minute and 12 per day it is 128 bytes per account, with no objects.
+//
+// Ids must lie in [0, capacity), like EligibilityIndex. A withdrawal over a limit is refused with
+// VELOCITY_LIMIT and, if suspendOnBreach is set, the account is also moved through violation().
+public class VelocityLimiter {
+
+    public static final int DEFAULT_MINUTE_BUCKETS = 4;
+    public static final int DEFAULT_DAY_BUCKETS = 12;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int VALUE_BITS = 40;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (Long.SIZE - VALUE_BITS)) - 1;
+
+    private final int capacity;
+    private final Window withdrawals;
+    private final Window amounts;
+    private final boolean suspendOnBreach;
+    private final LongSupplier clock;
+
+    public VelocityLimiter(int capacity, long maxWithdrawalsPerMinute, long maxCentsPerDay, boolean suspendOnBreach) {
+        this(capacity, maxWithdrawalsPerMinute, 60_000L, DEFAULT_MINUTE_BUCKETS,
+                maxCentsPerDay, 86_400_000L, DEFAULT_DAY_BUCKETS, suspendOnBreach, System::currentTimeMillis);
+    }
+
+    VelocityLimiter(int capacity, long maxCount, long countWindowMillis, int countBuckets,
+                    long maxCents, long amountWindowMillis, int amountBuckets,
+                    boolean suspendOnBreach, LongSupplier clock) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.withdrawals = new Window(capacity, maxCount, countWindowMillis, countBuckets);
+        this.amounts = new Window(capacity, maxCents, amountWindowMillis, amountBuckets);
+        this.suspendOnBreach = suspendOnBreach;
+        this.clock = clock;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Starts limiting the account's withdrawals
+    public void attach(Account account) {
+        checkId(account.getId());
+        account.setVelocityLimiter(this);
+    }
+
+    public void detach(Account account) {
+        account.setVelocityLimiter(null);
+    }
+
+    /**
+     * Counts one withdrawal of the amount against the account's windows and returns OK, or
+     * VELOCITY_LIMIT without counting anything if either window would go over its limit.
+     */
+    public OperationResult acquire(Account account, long amountCents) {
+        int id = checkId(account.getId());
+        long now = clock.getAsLong();
+        if (!withdrawals.tryAdd(id, now, 1)) return breach(account);
+        if (!amounts.tryAdd(id, now, amountCents)) {
+            withdrawals.remove(id, now, 1);
+            return breach(account);
+        }
+        return OperationResult.OK;
+    }
+
+    // Gives back an acquire whose withdrawal did not go through, e.g. for lack of funds.
+    // If the current bucket has rolled over since, the stale count simply ages out with it.
+    public void release(Account account, long amountCents) {
+        int id = checkId(account.getId());
+        long now = clock.getAsLong();
+        withdrawals.remove(id, now, 1);
+        amounts.remove(id, now, amountCents);
+    }
+
+    // Withdrawals counted for the account in the last minute window
+    public long withdrawalsInWindow(long accountId) {
+        return withdrawals.sum(checkId(accountId), clock.getAsLong());
+    }
+
+    // Cents withdrawn by the account in the last day window
+    public long centsInWindow(long accountId) {
+        return amounts.sum(checkId(accountId), clock.getAsLong());
+    }
+
+    private OperationResult breach(Account account) {
+        // only VERIFIED accounts move; for the rest violation() is refused by the FSM
+        if (suspendOnBreach) account.violation();
+        return OperationResult.VELOCITY_LIMIT;
+    }
+
+    private int checkId(long accountId) {
+        if (accountId < 0 || accountId >= capacity) {
+            throw new IllegalArgumentException("account id " + accountId + " is outside the limiter capacity " + capacity);
+        }
+        return (int) accountId;
+    }
+
+    // One sliding window: a ring of buckets per account in a flat array
+    private static final class Window {
+        private final long[] slots;
+        private final long limit;
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(int capacity, long limit, long windowMillis, int buckets) {
+            if (limit <= 0 || limit > VALUE_MASK) throw new IllegalArgumentException("limit out of range: " + limit);
+            if (buckets <= 0 || windowMillis < buckets) throw new IllegalArgumentException("bad window: " + windowMillis + "/" + buckets);
+            this.slots = new long[Math.multiplyExact(capacity, buckets)];
+            this.limit = limit;
+            this.bucketMillis = windowMillis / buckets;
+            this.buckets = buckets;
+        }
+
+        boolean tryAdd(int id, long now, long delta) {
+            long epoch = now / bucketMillis;
+            int current = id * buckets + (int) (epoch % buckets);
+            long tag = epoch & EPOCH_MASK;
+            while (true) {
+                long others = sumExcept(id, tag, current);
+                long slot = (long) SLOTS.getVolatile(slots, current);
+                long value = (slot >>> VALUE_BITS) == tag ? slot & VALUE_MASK : 0;
+                if (delta > limit - others - value) return false;
+                if (SLOTS.compareAndSet(slots, current, slot, tag << VALUE_BITS | (value + delta))) return true;
+            }
+        }
+
+        void remove(int id, long now, long delta) {
+            long epoch = now / bucketMillis;
+            int current = id * buckets + (int) (epoch % buckets);
+            long tag = epoch & EPOCH_MASK;
+            while (true) {
+                long slot = (long) SLOTS.getVolatile(slots, current);
+                if ((slot >>> VALUE_BITS) != tag) return;
+                long value = Math.max((slot & VALUE_MASK) - delta, 0);
+                if (SLOTS.compareAndSet(slots, current, slot, tag << VALUE_BITS | value)) return;
+            }
+        }
+
+        long sum(int id, long now) {
+            long tag = (now / bucketMillis) & EPOCH_MASK;
+            return sumExcept(id, tag, -1);
+        }
+
+        // total of the account's buckets that are inside the window ending at the tag's bucket
+        private long sumExcept(int id, long tag, int skip) {
+            long total = 0;
+            for (int i = id * buckets, end = i + buckets; i < end; i++) {
+                if (i == skip) continue;
+                long slot = (long) SLOTS.getVolatile(slots, i);
+                long age = (tag - (slot >>> VALUE_BITS)) & EPOCH_MASK;
+                if (age < buckets) total += slot & VALUE_MASK;
+            }
+            return total;
+        }
+    }
+}
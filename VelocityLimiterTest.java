@@ -0,0 +1,147 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VelocityLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    // 3 withdrawals per minute in 15s buckets, 500.00 per day in 2h buckets
+    private VelocityLimiter limiter(boolean suspendOnBreach) {
+        return new VelocityLimiter(16, 3, 60_000, 4, 50_000, 86_400_000, 12, suspendOnBreach, clock::get);
+    }
+
+    @Test
+    @DisplayName("Velocity: withdrawals per minute slide out of the window bucket by bucket")
+    public void countWindowSlides() {
+        VelocityLimiter limiter = limiter(false);
+        Account account = new Account(1L, 1_000, Status.VERIFIED, 700);
+        limiter.attach(account);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(OperationResult.OK, account.tryWithdrawCents(100));
+            clock.addAndGet(10_000);
+        }
+        assertEquals(OperationResult.VELOCITY_LIMIT, account.tryWithdrawCents(100));
+        assertEquals(3, limiter.withdrawalsInWindow(1L));
+        assertEquals(Status.VERIFIED, account.getStatus());
+
+        // the first withdrawal's bucket leaves the window
+        clock.addAndGet(30_000);
+        assertEquals(OperationResult.OK, account.tryWithdrawCents(100));
+        assertEquals(OperationResult.VELOCITY_LIMIT, account.tryWithdrawCents(100));
+        assertEquals(99_600, account.getBalanceCents());
+
+        clock.addAndGet(120_000);
+        assertEquals(0, limiter.withdrawalsInWindow(1L));
+        assertEquals(OperationResult.OK, account.tryWithdrawCents(100));
+    }
+
+    @Test
+    @DisplayName("Velocity: the daily amount limit also covers the source of a transfer")
+    public void dailyAmountLimit() {
+        VelocityLimiter limiter = limiter(false);
+        Account account = new Account(1L, 1_000, Status.VERIFIED, 700);
+        Account target = new Account(2L, 0, Status.VERIFIED, 700);
+        limiter.attach(account);
+        TransactionProcessor processor = new TransactionProcessor();
+
+        assertEquals(OperationResult.OK, account.tryWithdrawCents(30_000));
+        clock.addAndGet(3_600_000);
+        assertEquals(OperationResult.VELOCITY_LIMIT, processor.tryTransferCents(account, target, 20_001));
+        assertEquals(OperationResult.OK, processor.tryTransferCents(account, target, 20_000));
+        assertEquals(50_000, limiter.centsInWindow(1L));
+
+        clock.addAndGet(86_400_000);
+        assertEquals(0, limiter.centsInWindow(1L));
+        assertEquals(OperationResult.OK, account.tryWithdrawCents(10_000));
+    }
+
+    @Test
+    @DisplayName("Velocity: refused withdrawals and refunded transfers do not use up the allowance")
+    public void failuresAreReleased() {
+        VelocityLimiter limiter = limiter(false);
+        Account account = new Account(1L, 10, Status.VERIFIED, 700);
+        limiter.attach(account);
+
+        assertEquals(OperationResult.INSUFFICIENT_FUNDS, account.tryWithdrawCents(5_000));
+        assertEquals(OperationResult.CLOSED,
+                new TransactionProcessor().tryTransferCents(account, new Account(2L, 0, Status.CLOSED, 700), 100));
+        assertEquals(0, limiter.withdrawalsInWindow(1L));
+        assertEquals(0, limiter.centsInWindow(1L));
+        assertEquals(1_000, account.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Velocity: a breach can suspend the account through the FSM")
+    public void breachSuspends() {
+        VelocityLimiter limiter = limiter(true);
+        Account account = new Account(1L, 1_000, Status.VERIFIED, 700);
+        limiter.attach(account);
+
+        assertEquals(OperationResult.VELOCITY_LIMIT, account.tryWithdrawCents(50_001));
+        assertEquals(Status.SUSPENDED, account.getStatus());
+        assertEquals(OperationResult.SUSPENDED, account.tryWithdrawCents(1));
+
+        limiter.detach(account);
+        assertTrue(account.appeal());
+        assertEquals(OperationResult.OK, account.tryWithdrawCents(50_001));
+        assertThrows(IllegalArgumentException.class, () -> limiter.attach(new Account(16L, 0, Status.VERIFIED, 700)));
+    }
+
+    @Test
+    @DisplayName("Velocity: a batch stops debiting a source that a breach suspended")
+    public void breachSuspendsInsideBatch() {
+        VelocityLimiter limiter = limiter(true);
+        Account account = new Account(1L, 1_000, Status.VERIFIED, 700);
+        Account target = new Account(2L, 0, Status.VERIFIED, 700);
+        limiter.attach(account);
+
+        boolean[] results = new TransactionProcessor().processBatch(List.of(
+                new TransferInstruction(account, target, 100.00),
+                new TransferInstruction(account, target, 450.00),
+                new TransferInstruction(account, target, 1.00)));
+
+        assertArrayEquals(new boolean[] {true, false, false}, results);
+        assertEquals(Status.SUSPENDED, account.getStatus());
+        assertEquals(90_000, account.getBalanceCents());
+        assertEquals(10_000, target.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("Velocity: concurrent withdrawals never exceed the limit")
+    public void concurrentWithdrawals() throws Exception {
+        VelocityLimiter limiter = new VelocityLimiter(4, 1_000, 60_000, 4, 1_000_000, 86_400_000, 12, false, clock::get);
+        Account account = new Account(3L, 1_000_000, Status.VERIFIED, 700);
+        limiter.attach(account);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    int ok = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (account.withdrawCents(1)) ok++;
+                    }
+                    return ok;
+                }));
+            }
+            int succeeded = 0;
+            for (Future<Integer> result : results) succeeded += result.get();
+            assertEquals(1_000, succeeded);
+            assertEquals(1_000, limiter.withdrawalsInWindow(3L));
+            assertEquals(100_000_000 - 1_000, account.getBalanceCents());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
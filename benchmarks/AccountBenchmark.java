@@ -0,0 +1,68 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Account.deposit/withdraw on one shared hot account and on one account per thread
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+
+    // large enough that withdrawals never run dry during a run
+    private static final double START_BALANCE = 1_000_000_000.0;
+
+    private static final BankingOps OPS = BankingOps.load();
+
+    @State(Scope.Benchmark)
+    public static class SharedAccount {
+        Object account;
+
+        @Setup
+        public void setup() {
+            account = OPS.newAccount(START_BALANCE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnAccount {
+        Object account;
+
+        @Setup
+        public void setup() {
+            account = OPS.newAccount(START_BALANCE);
+        }
+    }
+
+    @Benchmark
+    public boolean depositShared(SharedAccount state) {
+        return OPS.deposit(state.account, 1.25);
+    }
+
+    @Benchmark
+    public boolean withdrawShared(SharedAccount state) {
+        return OPS.withdraw(state.account, 0.01);
+    }
+
+    @Benchmark
+    public boolean depositOwn(OwnAccount state) {
+        return OPS.deposit(state.account, 1.25);
+    }
+
+    @Benchmark
+    public boolean withdrawOwn(OwnAccount state) {
+        return OPS.withdraw(state.account, 0.01);
+    }
+}
@@ -0,0 +1,87 @@
+import benchmarks.BankingOps;
+
+import java.util.concurrent.CompletableFuture;
+
+// Default-package side of benchmarks.BankingOps; see that interface for why it exists
+public class BankingBenchmarkOps implements BankingOps {
+
+    @Override
+    public Object newAccount(double balance) {
+        return new Account(balance, Status.VERIFIED);
+    }
+
+    @Override
+    public Object newProcessor() {
+        return new TransactionProcessor();
+    }
+
+    @Override
+    public Object newController() {
+        return new ClientController();
+    }
+
+    @Override
+    public boolean deposit(Object account, double amount) {
+        return ((Account) account).deposit(amount);
+    }
+
+    @Override
+    public boolean withdraw(Object account, double amount) {
+        return ((Account) account).withdraw(amount);
+    }
+
+    @Override
+    public boolean processTransfer(Object processor, Object source, Object target, double amount) {
+        return ((TransactionProcessor) processor).processTransfer((Account) source, (Account) target, amount);
+    }
+
+    @Override
+    public String handleDeposit(Object controller, Object account, String amount) {
+        return ((ClientController) controller).handleDeposit((Account) account, amount);
+    }
+
+    @Override
+    public String handleWithdraw(Object controller, Object account, String amount) {
+        return ((ClientController) controller).handleWithdraw((Account) account, amount);
+    }
+
+    @Override
+    public String handleTransfer(Object controller, Object source, Object target, String amount) {
+        return ((ClientController) controller).handleTransfer((Account) source, (Account) target, amount);
+    }
+
+    @Override
+    public String handleViewStatement(Object controller, Object account) {
+        return ((ClientController) controller).handleViewStatement((Account) account);
+    }
+
+    @Override
+    public Object depositResult(Object controller, Object account, CharSequence amount) {
+        return ((ClientController) controller).deposit((Account) account, amount);
+    }
+
+    @Override
+    public StringBuilder appendStatement(Object controller, Object account, StringBuilder out) {
+        return ((ClientController) controller).appendStatement((Account) account, out);
+    }
+
+    @Override
+    public Object newEngine(int shards) {
+        return new ShardedTransactionEngine(shards);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> submitTransfer(Object engine, Object source, Object target, long amountCents) {
+        return ((ShardedTransactionEngine) engine).submitTransfer((Account) source, (Account) target, amountCents);
+    }
+
+    @Override
+    public void closeEngine(Object engine) {
+        ((ShardedTransactionEngine) engine).close();
+    }
+
+    @Override
+    public void installMetrics(boolean enabled) {
+        BankingMetrics.install(enabled ? new BankingMetrics() : null);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+
+// The banking classes live in the default package, which a named package cannot import,
+// and JMH refuses benchmark classes in the default package. Benchmarks therefore reach
+// Account, TransactionProcessor and ClientController through this interface, implemented
+// by the default-package BankingBenchmarkOps. Handles are passed around as plain Objects.
+public interface BankingOps {
+
+    Object newAccount(double balance);
+
+    Object newProcessor();
+
+    Object newController();
+
+    boolean deposit(Object account, double amount);
+
+    boolean withdraw(Object account, double amount);
+
+    boolean processTransfer(Object processor, Object source, Object target, double amount);
+
+    String handleDeposit(Object controller, Object account, String amount);
+
+    String handleWithdraw(Object controller, Object account, String amount);
+
+    String handleTransfer(Object controller, Object source, Object target, String amount);
+
+    String handleViewStatement(Object controller, Object account);
+
+    // allocation-free controller paths; the Object result is a ControllerResult constant
+    Object depositResult(Object controller, Object account, CharSequence amount);
+
+    StringBuilder appendStatement(Object controller, Object account, StringBuilder out);
+
+    // ShardedTransactionEngine; the engine handle must be closed with closeEngine
+    Object newEngine(int shards);
+
+    CompletableFuture<Boolean> submitTransfer(Object engine, Object source, Object target, long amountCents);
+
+    void closeEngine(Object engine);
+
+    // installs a fresh BankingMetrics, or removes it when enabled is false
+    void installMetrics(boolean enabled);
+
+    static BankingOps load() {
+        try {
+            return (BankingOps) Class.forName("BankingBenchmarkOps").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BankingBenchmarkOps is not on the classpath", e);
+        }
+    }
+}
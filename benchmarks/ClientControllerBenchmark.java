@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The String parse/format path of ClientController, including the invalid-input path
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientControllerBenchmark {
+
+    private static final BankingOps OPS = BankingOps.load();
+
+    @State(Scope.Thread)
+    public static class Client {
+        Object controller;
+        Object account;
+        Object other;
+        StringBuilder statement = new StringBuilder(32);
+
+        @Setup
+        public void setup() {
+            controller = OPS.newController();
+            account = OPS.newAccount(1_000_000_000.0);
+            other = OPS.newAccount(1_000_000_000.0);
+        }
+    }
+
+    @Benchmark
+    public String handleDeposit(Client client) {
+        return OPS.handleDeposit(client.controller, client.account, "125.50");
+    }
+
+    @Benchmark
+    public String handleWithdraw(Client client) {
+        return OPS.handleWithdraw(client.controller, client.account, "0.01");
+    }
+
+    @Benchmark
+    public String handleTransfer(Client client) {
+        return OPS.handleTransfer(client.controller, client.account, client.other, "0.01");
+    }
+
+    @Benchmark
+    public String handleInvalidInput(Client client) {
+        return OPS.handleDeposit(client.controller, client.account, "NotANumber");
+    }
+
+    @Benchmark
+    public String handleViewStatement(Client client) {
+        return OPS.handleViewStatement(client.controller, client.account);
+    }
+
+    @Benchmark
+    public Object depositFastPath(Client client) {
+        return OPS.depositResult(client.controller, client.account, "125.50");
+    }
+
+    @Benchmark
+    public Object invalidInputFastPath(Client client) {
+        return OPS.depositResult(client.controller, client.account, "NotANumber");
+    }
+
+    @Benchmark
+    public StringBuilder appendStatement(Client client) {
+        client.statement.setLength(0);
+        return OPS.appendStatement(client.controller, client.account, client.statement);
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of BankingMetrics on the Account and TransactionProcessor hot paths: compare metrics=off with metrics=on
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final BankingOps OPS = BankingOps.load();
+
+    @State(Scope.Benchmark)
+    public static class Metrics {
+        @Param({"off", "on"})
+        String metrics;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            OPS.installMetrics("on".equals(metrics));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            OPS.installMetrics(false);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnAccounts {
+        Object processor;
+        Object a;
+        Object b;
+        boolean forward;
+
+        @Setup
+        public void setup() {
+            processor = OPS.newProcessor();
+            a = OPS.newAccount(1_000_000_000);
+            b = OPS.newAccount(1_000_000_000);
+        }
+    }
+
+    @Benchmark
+    public boolean deposit(Metrics metrics, OwnAccounts state) {
+        return OPS.deposit(state.a, 1.25);
+    }
+
+    // rejected for insufficient funds, so the failure reason is worked out too
+    @Benchmark
+    public boolean rejectedWithdraw(Metrics metrics, OwnAccounts state) {
+        return OPS.withdraw(state.a, 1e12);
+    }
+
+    @Benchmark
+    public boolean transfer(Metrics metrics, OwnAccounts state) {
+        state.forward = !state.forward;
+        return state.forward
+                ? OPS.processTransfer(state.processor, state.a, state.b, 1)
+                : OPS.processTransfer(state.processor, state.b, state.a, 1);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Hot merchant: every thread pays into the same account from its own customer account.
+// Compares the synchronous, lock-based processTransfer with ShardedTransactionEngine,
+// both waiting for each transfer and pipelining a window of transfers per join.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedEngineBenchmark {
+
+    private static final BankingOps OPS = BankingOps.load();
+    private static final int WINDOW = 64;
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"4"})
+        int shards;
+
+        Object processor;
+        Object engine;
+        Object merchant;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            processor = OPS.newProcessor();
+            engine = OPS.newEngine(shards);
+            merchant = OPS.newAccount(0);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            OPS.closeEngine(engine);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+        Object account;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            account = OPS.newAccount(1_000_000_000);
+        }
+    }
+
+    @Benchmark
+    public boolean lockedTransfer(Bank bank, Customer customer) {
+        return OPS.processTransfer(bank.processor, customer.account, bank.merchant, 0.01);
+    }
+
+    @Benchmark
+    public boolean engineTransfer(Bank bank, Customer customer) {
+        return OPS.submitTransfer(bank.engine, customer.account, bank.merchant, 1).join();
+    }
+
+    // one operation is WINDOW transfers in flight before waiting on the last
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public boolean enginePipelined(Bank bank, Customer customer) {
+        CompletableFuture<Boolean> last = null;
+        for (int i = 0; i < WINDOW; i++) {
+            last = OPS.submitTransfer(bank.engine, customer.account, bank.merchant, 1);
+        }
+        return last.join();
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// processTransfer with every thread on the same two accounts (contended) and on its own pair (uncontended)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionProcessorBenchmark {
+
+    private static final BankingOps OPS = BankingOps.load();
+
+    @State(Scope.Benchmark)
+    public static class SharedPair {
+        Object processor;
+        Object a;
+        Object b;
+
+        @Setup
+        public void setup() {
+            processor = OPS.newProcessor();
+            a = OPS.newAccount(1_000_000);
+            b = OPS.newAccount(1_000_000);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnPair {
+        Object processor;
+        Object a;
+        Object b;
+        boolean forward;
+
+        @Setup
+        public void setup() {
+            processor = OPS.newProcessor();
+            a = OPS.newAccount(1_000_000);
+            b = OPS.newAccount(1_000_000);
+        }
+    }
+
+    // alternating direction keeps both balances stable and exercises both lock orders
+    @Benchmark
+    public boolean contendedTransfer(SharedPair pair, OwnPair direction) {
+        direction.forward = !direction.forward;
+        return direction.forward
+                ? OPS.processTransfer(pair.processor, pair.a, pair.b, 1)
+                : OPS.processTransfer(pair.processor, pair.b, pair.a, 1);
+    }
+
+    @Benchmark
+    public boolean uncontendedTransfer(OwnPair pair) {
+        pair.forward = !pair.forward;
+        return pair.forward
+                ? OPS.processTransfer(pair.processor, pair.a, pair.b, 1)
+                : OPS.processTransfer(pair.processor, pair.b, pair.a, 1);
+    }
+}